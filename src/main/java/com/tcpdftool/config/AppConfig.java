@@ -1,8 +1,12 @@
 package com.tcpdftool.config;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 应用程序配置类
  * 包含所有可配置的参数
@@ -26,6 +30,24 @@ public class AppConfig {
     @JsonProperty("autoStartMonitoring")
     private boolean autoStartMonitoring = false;
     
+    @JsonProperty("maxWatchedDirectories")
+    private int maxWatchedDirectories = 4096; // 实时监控的目录数上限，超出部分依靠定时扫描，<=0不限制
+    
+    @JsonProperty("watchBackend")
+    private String watchBackend = "DIRECTORY_WATCHER"; // 文件监控实现：JDK_WATCH_SERVICE、DIRECTORY_WATCHER
+    
+    @JsonProperty("watchFileHashing")
+    private String watchFileHashing = "NONE"; // directory-watcher事件去重方式：NONE、LAST_MODIFIED、CONTENT
+    
+    @JsonProperty("safetyScanInterval")
+    private int safetyScanInterval = 60; // 分钟 - 实时监控覆盖全部目录时，定时全量扫描降为该间隔的兜底扫描，<=0保持定时扫描
+    
+    @JsonProperty("incrementalScan")
+    private boolean incrementalScan = true; // 定时扫描跳过修改时间未变化的目录
+    
+    @JsonProperty("scanParallelism")
+    private int scanParallelism = 1; // 目录遍历线程数，<=1顺序遍历；网络盘上可适当调大以重叠列举和读取属性的往返
+    
     // 检测配置
     @JsonProperty("enableFileSizeDetection")
     private boolean enableFileSizeDetection = true;
@@ -56,6 +78,105 @@ public class AppConfig {
     @JsonProperty("contentPixelDensityThreshold")
     private double contentPixelDensityThreshold = 10.0; // 百分比 - 内容像素密度阈值
     
+    // 多区域检测：附加区域与主检测区域共用一次渲染、一次像素扫描
+    @JsonProperty("additionalDetectionRegions")
+    private List<DetectionRegion> additionalDetectionRegions = new ArrayList<>();
+    
+    @JsonProperty("enableLuminanceHistogram")
+    private boolean enableLuminanceHistogram = false; // 统计渲染区域的亮度直方图
+    
+    // 加载前结构预检
+    @JsonProperty("enableStructurePrecheck")
+    private boolean enableStructurePrecheck = true;
+    
+    // 文本层快速判定：第一页可见字形足够多时直接判定正常，不渲染
+    // 注意：只有标题栏文字的空白图纸也会被判定为正常，适用于正文本身带文本层的文档
+    @JsonProperty("enableTextLayerFastPath")
+    private boolean enableTextLayerFastPath = false;
+    
+    @JsonProperty("textLayerMinGlyphs")
+    private int textLayerMinGlyphs = 200; // 判定为正常所需的最少可见字形数
+    
+    // 渲染前内容流预判
+    @JsonProperty("enableContentStreamTriage")
+    private boolean enableContentStreamTriage = true;
+    
+    @JsonProperty("triageNormalOperatorThreshold")
+    private int triageNormalOperatorThreshold = 500; // 检测区域内绘制操作符数量达到该值且估算着墨比例不低于密度阈值时直接判定正常
+    
+    // 单图像页面（如扫描件）直接按子采样读取图像检测区域，不经渲染合成
+    @JsonProperty("enableImageXObjectPath")
+    private boolean enableImageXObjectPath = true;
+    
+    @JsonProperty("maxRenderMegapixels")
+    private double maxRenderMegapixels = 0; // 整页渲染像素上限(百万像素)，超出时降低DPI，<=0不限制；降低DPI会放大细线密度，默认关闭
+    
+    // 多分辨率检测：先低分辨率渲染，密度低于阈值减去不确定带时直接判定疑似空，否则再标准渲染
+    @JsonProperty("enableAdaptiveResolution")
+    private boolean enableAdaptiveResolution = true;
+    
+    @JsonProperty("lowResolutionDpi")
+    private int lowResolutionDpi = 18;
+    
+    @JsonProperty("densityUncertaintyBand")
+    private double densityUncertaintyBand = 5.0; // 百分点 - 低分辨率密度不低于 阈值-该值 时升级到标准渲染
+    
+    // 抽样估计：按分层网格抽样估计密度，置信区间跨越阈值时才完整计数
+    @JsonProperty("enableSampledDensity")
+    private boolean enableSampledDensity = false;
+    
+    @JsonProperty("densitySampleRate")
+    private double densitySampleRate = 10.0; // 百分比 - 抽样像素占检测区域的比例
+    
+    @JsonProperty("densityConfidenceLevel")
+    private double densityConfidenceLevel = 95.0; // 百分比 - 置信区间的置信水平
+    
+    @JsonProperty("detectionCombinePolicy")
+    private String detectionCombinePolicy = "ANY"; // ANY-任一检测判定疑似空即为疑似空，ALL-全部检测判定疑似空才为疑似空
+    
+    // 检测结果缓存
+    @JsonProperty("enableDetectionCache")
+    private boolean enableDetectionCache = true;
+    
+    @JsonProperty("detectionCacheContentHash")
+    private boolean detectionCacheContentHash = false; // 命中缓存时额外校验文件头尾内容摘要
+    
+    // PDF加载内存限制
+    @JsonProperty("maxMainMemoryPerDocumentMB")
+    private int maxMainMemoryPerDocumentMB = 64; // 单个文档主内存上限(MB)，超出部分写入临时文件，<=0仅使用主内存
+    
+    @JsonProperty("scratchDirectory")
+    private String scratchDirectory = ""; // 临时文件目录，空表示使用配置目录下的scratch
+    
+    // 检测队列
+    @JsonProperty("detectionThreads")
+    private int detectionThreads = 0; // 检测线程数，<=0按CPU核数自动确定
+    
+    @JsonProperty("detectionQueueCapacity")
+    private int detectionQueueCapacity = 256; // 排队上限，队列满时提交方等待
+    
+    @JsonProperty("detectionOrder")
+    private String detectionOrder = "NEWEST_FIRST"; // 同一优先级内的检测顺序：FIFO、SMALLEST_FIRST、NEWEST_FIRST
+    
+    @JsonProperty("detectionTimeoutSeconds")
+    private int detectionTimeoutSeconds = 120; // 单文件检测时限(秒)，超时放弃渲染并标记为检测超时，<=0不限时
+    
+    @JsonProperty("warmupIterations")
+    private int warmupIterations = 3; // 启动预热时渲染合成页面的次数，<=0不预热
+    
+    // 检测进程隔离
+    @JsonProperty("enableProcessIsolation")
+    private boolean enableProcessIsolation = false; // 在独立子JVM中检测，渲染崩溃或内存溢出不影响主程序
+    
+    @JsonProperty("workerProcesses")
+    private int workerProcesses = 0; // 检测子进程数，<=0与检测线程数一致
+    
+    @JsonProperty("workerMaxHeapMB")
+    private int workerMaxHeapMB = 512; // 单个检测子进程的堆上限(MB)
+    
+    @JsonProperty("workerRecycleAfterFiles")
+    private int workerRecycleAfterFiles = 500; // 检测子进程处理该数量文件后重建
+    
     // 短信通知配置
     
     // 短信通知配置
@@ -132,6 +253,54 @@ public class AppConfig {
         this.autoStartMonitoring = autoStartMonitoring;
     }
     
+    public int getMaxWatchedDirectories() {
+        return maxWatchedDirectories;
+    }
+    
+    public void setMaxWatchedDirectories(int maxWatchedDirectories) {
+        this.maxWatchedDirectories = maxWatchedDirectories;
+    }
+    
+    public String getWatchBackend() {
+        return watchBackend;
+    }
+    
+    public void setWatchBackend(String watchBackend) {
+        this.watchBackend = watchBackend;
+    }
+    
+    public String getWatchFileHashing() {
+        return watchFileHashing;
+    }
+    
+    public void setWatchFileHashing(String watchFileHashing) {
+        this.watchFileHashing = watchFileHashing;
+    }
+    
+    public int getSafetyScanInterval() {
+        return safetyScanInterval;
+    }
+    
+    public void setSafetyScanInterval(int safetyScanInterval) {
+        this.safetyScanInterval = safetyScanInterval;
+    }
+    
+    public boolean isIncrementalScan() {
+        return incrementalScan;
+    }
+    
+    public void setIncrementalScan(boolean incrementalScan) {
+        this.incrementalScan = incrementalScan;
+    }
+    
+    public int getScanParallelism() {
+        return scanParallelism;
+    }
+    
+    public void setScanParallelism(int scanParallelism) {
+        this.scanParallelism = scanParallelism;
+    }
+    
     public boolean isEnableFileSizeDetection() {
         return enableFileSizeDetection;
     }
@@ -196,6 +365,31 @@ public class AppConfig {
         this.horizontalOffsetPercent = horizontalOffsetPercent;
     }
     
+    public List<DetectionRegion> getAdditionalDetectionRegions() {
+        return additionalDetectionRegions;
+    }
+    
+    public void setAdditionalDetectionRegions(List<DetectionRegion> additionalDetectionRegions) {
+        this.additionalDetectionRegions = additionalDetectionRegions != null
+            ? additionalDetectionRegions : new ArrayList<>();
+    }
+    
+    public boolean isEnableLuminanceHistogram() {
+        return enableLuminanceHistogram;
+    }
+    
+    public void setEnableLuminanceHistogram(boolean enableLuminanceHistogram) {
+        this.enableLuminanceHistogram = enableLuminanceHistogram;
+    }
+    
+    /**
+     * 是否需要多区域单次扫描（配置了附加区域或亮度直方图）
+     */
+    @JsonIgnore
+    public boolean isMultiRegionAnalysis() {
+        return !additionalDetectionRegions.isEmpty() || enableLuminanceHistogram;
+    }
+    
     public double getContentPixelDensityThreshold() {
         return contentPixelDensityThreshold;
     }
@@ -204,6 +398,241 @@ public class AppConfig {
         this.contentPixelDensityThreshold = contentPixelDensityThreshold;
     }
     
+    public boolean isEnableStructurePrecheck() {
+        return enableStructurePrecheck;
+    }
+    
+    public void setEnableStructurePrecheck(boolean enableStructurePrecheck) {
+        this.enableStructurePrecheck = enableStructurePrecheck;
+    }
+    
+    public boolean isEnableTextLayerFastPath() {
+        return enableTextLayerFastPath;
+    }
+    
+    public void setEnableTextLayerFastPath(boolean enableTextLayerFastPath) {
+        this.enableTextLayerFastPath = enableTextLayerFastPath;
+    }
+    
+    public int getTextLayerMinGlyphs() {
+        return textLayerMinGlyphs;
+    }
+    
+    public void setTextLayerMinGlyphs(int textLayerMinGlyphs) {
+        this.textLayerMinGlyphs = textLayerMinGlyphs;
+    }
+    
+    public boolean isEnableContentStreamTriage() {
+        return enableContentStreamTriage;
+    }
+    
+    public void setEnableContentStreamTriage(boolean enableContentStreamTriage) {
+        this.enableContentStreamTriage = enableContentStreamTriage;
+    }
+    
+    public int getTriageNormalOperatorThreshold() {
+        return triageNormalOperatorThreshold;
+    }
+    
+    public void setTriageNormalOperatorThreshold(int triageNormalOperatorThreshold) {
+        this.triageNormalOperatorThreshold = triageNormalOperatorThreshold;
+    }
+    
+    public boolean isEnableImageXObjectPath() {
+        return enableImageXObjectPath;
+    }
+    
+    public void setEnableImageXObjectPath(boolean enableImageXObjectPath) {
+        this.enableImageXObjectPath = enableImageXObjectPath;
+    }
+    
+    public double getMaxRenderMegapixels() {
+        return maxRenderMegapixels;
+    }
+    
+    public void setMaxRenderMegapixels(double maxRenderMegapixels) {
+        this.maxRenderMegapixels = maxRenderMegapixels;
+    }
+    
+    public boolean isEnableAdaptiveResolution() {
+        return enableAdaptiveResolution;
+    }
+    
+    public void setEnableAdaptiveResolution(boolean enableAdaptiveResolution) {
+        this.enableAdaptiveResolution = enableAdaptiveResolution;
+    }
+    
+    public int getLowResolutionDpi() {
+        return lowResolutionDpi;
+    }
+    
+    public void setLowResolutionDpi(int lowResolutionDpi) {
+        this.lowResolutionDpi = lowResolutionDpi;
+    }
+    
+    public double getDensityUncertaintyBand() {
+        return densityUncertaintyBand;
+    }
+    
+    public void setDensityUncertaintyBand(double densityUncertaintyBand) {
+        this.densityUncertaintyBand = densityUncertaintyBand;
+    }
+    
+    public boolean isEnableSampledDensity() {
+        return enableSampledDensity;
+    }
+    
+    public void setEnableSampledDensity(boolean enableSampledDensity) {
+        this.enableSampledDensity = enableSampledDensity;
+    }
+    
+    public double getDensitySampleRate() {
+        return densitySampleRate;
+    }
+    
+    public void setDensitySampleRate(double densitySampleRate) {
+        this.densitySampleRate = densitySampleRate;
+    }
+    
+    public double getDensityConfidenceLevel() {
+        return densityConfidenceLevel;
+    }
+    
+    public void setDensityConfidenceLevel(double densityConfidenceLevel) {
+        this.densityConfidenceLevel = densityConfidenceLevel;
+    }
+    
+    public String getDetectionCombinePolicy() {
+        return detectionCombinePolicy;
+    }
+    
+    public void setDetectionCombinePolicy(String detectionCombinePolicy) {
+        this.detectionCombinePolicy = detectionCombinePolicy;
+    }
+    
+    public boolean isEnableDetectionCache() {
+        return enableDetectionCache;
+    }
+    
+    public void setEnableDetectionCache(boolean enableDetectionCache) {
+        this.enableDetectionCache = enableDetectionCache;
+    }
+    
+    public boolean isDetectionCacheContentHash() {
+        return detectionCacheContentHash;
+    }
+    
+    public void setDetectionCacheContentHash(boolean detectionCacheContentHash) {
+        this.detectionCacheContentHash = detectionCacheContentHash;
+    }
+    
+    public int getMaxMainMemoryPerDocumentMB() {
+        return maxMainMemoryPerDocumentMB;
+    }
+    
+    public void setMaxMainMemoryPerDocumentMB(int maxMainMemoryPerDocumentMB) {
+        this.maxMainMemoryPerDocumentMB = maxMainMemoryPerDocumentMB;
+    }
+    
+    public String getScratchDirectory() {
+        return scratchDirectory;
+    }
+    
+    public void setScratchDirectory(String scratchDirectory) {
+        this.scratchDirectory = scratchDirectory;
+    }
+    
+    public int getDetectionThreads() {
+        return detectionThreads;
+    }
+    
+    public void setDetectionThreads(int detectionThreads) {
+        this.detectionThreads = detectionThreads;
+    }
+    
+    public int getDetectionQueueCapacity() {
+        return detectionQueueCapacity;
+    }
+    
+    public void setDetectionQueueCapacity(int detectionQueueCapacity) {
+        this.detectionQueueCapacity = detectionQueueCapacity;
+    }
+    
+    public String getDetectionOrder() {
+        return detectionOrder;
+    }
+    
+    public void setDetectionOrder(String detectionOrder) {
+        this.detectionOrder = detectionOrder;
+    }
+    
+    public int getDetectionTimeoutSeconds() {
+        return detectionTimeoutSeconds;
+    }
+    
+    public void setDetectionTimeoutSeconds(int detectionTimeoutSeconds) {
+        this.detectionTimeoutSeconds = detectionTimeoutSeconds;
+    }
+    
+    public int getWarmupIterations() {
+        return warmupIterations;
+    }
+    
+    public void setWarmupIterations(int warmupIterations) {
+        this.warmupIterations = warmupIterations;
+    }
+    
+    public boolean isEnableProcessIsolation() {
+        return enableProcessIsolation;
+    }
+    
+    public void setEnableProcessIsolation(boolean enableProcessIsolation) {
+        this.enableProcessIsolation = enableProcessIsolation;
+    }
+    
+    public int getWorkerProcesses() {
+        return workerProcesses;
+    }
+    
+    public void setWorkerProcesses(int workerProcesses) {
+        this.workerProcesses = workerProcesses;
+    }
+    
+    public int getWorkerMaxHeapMB() {
+        return workerMaxHeapMB;
+    }
+    
+    public void setWorkerMaxHeapMB(int workerMaxHeapMB) {
+        this.workerMaxHeapMB = workerMaxHeapMB;
+    }
+    
+    public int getWorkerRecycleAfterFiles() {
+        return workerRecycleAfterFiles;
+    }
+    
+    public void setWorkerRecycleAfterFiles(int workerRecycleAfterFiles) {
+        this.workerRecycleAfterFiles = workerRecycleAfterFiles;
+    }
+    
+    /**
+     * 实际使用的检测子进程数
+     */
+    @JsonIgnore
+    public int getEffectiveWorkerProcesses() {
+        return workerProcesses > 0 ? workerProcesses : getEffectiveDetectionThreads();
+    }
+    
+    /**
+     * 实际使用的检测线程数
+     */
+    @JsonIgnore
+    public int getEffectiveDetectionThreads() {
+        if (detectionThreads > 0) {
+            return detectionThreads;
+        }
+        return Math.max(1, Runtime.getRuntime().availableProcessors());
+    }
+    
     public boolean isEnableSmsNotification() {
         return enableSmsNotification;
     }
@@ -284,6 +713,35 @@ public class AppConfig {
         this.windowY = windowY;
     }
     
+    /**
+     * 获取影响检测结论的配置指纹
+     * 任一检测相关参数变化都会使检测结果缓存失效，新增检测参数时需同步加入
+     */
+    @JsonIgnore
+    public String getDetectionSettingsKey() {
+        return "precheck=" + enableStructurePrecheck +
+               ";size=" + enableFileSizeDetection + ":" + fileSizeThreshold +
+               ";image=" + enableImageContentDetection +
+               ";area=" + detectionAreaWidthPercent + "x" + detectionAreaHeightPercent + "@" + horizontalOffsetPercent +
+               ";density=" + contentPixelDensityThreshold +
+               ";text=" + enableTextLayerFastPath + ":" + textLayerMinGlyphs +
+               ";triage=" + enableContentStreamTriage + ":" + triageNormalOperatorThreshold + ":area" +
+               ";xobject=" + enableImageXObjectPath +
+               ";budget=" + maxRenderMegapixels +
+               ";adaptive=" + enableAdaptiveResolution + ":" + lowResolutionDpi + ":" + densityUncertaintyBand +
+               ";sampling=" + enableSampledDensity + ":" + densitySampleRate + ":" + densityConfidenceLevel +
+               ";policy=" + detectionCombinePolicy +
+               ";regions=" + getRegionsSettingsKey() + ":" + enableLuminanceHistogram;
+    }
+    
+    private String getRegionsSettingsKey() {
+        StringBuilder key = new StringBuilder();
+        for (DetectionRegion region : additionalDetectionRegions) {
+            key.append('[').append(region.getSettingsKey()).append(']');
+        }
+        return key.toString();
+    }
+    
     /**
      * 创建配置的副本
      */
@@ -294,6 +752,12 @@ public class AppConfig {
         copy.fileTimeRange = this.fileTimeRange;
         copy.includeSubdirectories = this.includeSubdirectories;
         copy.autoStartMonitoring = this.autoStartMonitoring;
+        copy.maxWatchedDirectories = this.maxWatchedDirectories;
+        copy.watchBackend = this.watchBackend;
+        copy.watchFileHashing = this.watchFileHashing;
+        copy.safetyScanInterval = this.safetyScanInterval;
+        copy.incrementalScan = this.incrementalScan;
+        copy.scanParallelism = this.scanParallelism;
         copy.enableFileSizeDetection = this.enableFileSizeDetection;
         copy.fileSizeThreshold = this.fileSizeThreshold;
         copy.enableImageContentDetection = this.enableImageContentDetection;
@@ -303,6 +767,38 @@ public class AppConfig {
         copy.detectionAreaHeightPercent = this.detectionAreaHeightPercent;
         copy.horizontalOffsetPercent = this.horizontalOffsetPercent;
         copy.contentPixelDensityThreshold = this.contentPixelDensityThreshold;
+        copy.additionalDetectionRegions = new ArrayList<>();
+        for (DetectionRegion region : this.additionalDetectionRegions) {
+            copy.additionalDetectionRegions.add(region.copy());
+        }
+        copy.enableLuminanceHistogram = this.enableLuminanceHistogram;
+        copy.enableStructurePrecheck = this.enableStructurePrecheck;
+        copy.enableTextLayerFastPath = this.enableTextLayerFastPath;
+        copy.textLayerMinGlyphs = this.textLayerMinGlyphs;
+        copy.enableContentStreamTriage = this.enableContentStreamTriage;
+        copy.triageNormalOperatorThreshold = this.triageNormalOperatorThreshold;
+        copy.enableImageXObjectPath = this.enableImageXObjectPath;
+        copy.maxRenderMegapixels = this.maxRenderMegapixels;
+        copy.enableAdaptiveResolution = this.enableAdaptiveResolution;
+        copy.lowResolutionDpi = this.lowResolutionDpi;
+        copy.densityUncertaintyBand = this.densityUncertaintyBand;
+        copy.enableSampledDensity = this.enableSampledDensity;
+        copy.densitySampleRate = this.densitySampleRate;
+        copy.densityConfidenceLevel = this.densityConfidenceLevel;
+        copy.detectionCombinePolicy = this.detectionCombinePolicy;
+        copy.enableDetectionCache = this.enableDetectionCache;
+        copy.detectionCacheContentHash = this.detectionCacheContentHash;
+        copy.maxMainMemoryPerDocumentMB = this.maxMainMemoryPerDocumentMB;
+        copy.scratchDirectory = this.scratchDirectory;
+        copy.detectionThreads = this.detectionThreads;
+        copy.detectionQueueCapacity = this.detectionQueueCapacity;
+        copy.detectionOrder = this.detectionOrder;
+        copy.detectionTimeoutSeconds = this.detectionTimeoutSeconds;
+        copy.warmupIterations = this.warmupIterations;
+        copy.enableProcessIsolation = this.enableProcessIsolation;
+        copy.workerProcesses = this.workerProcesses;
+        copy.workerMaxHeapMB = this.workerMaxHeapMB;
+        copy.workerRecycleAfterFiles = this.workerRecycleAfterFiles;
         copy.enableSmsNotification = this.enableSmsNotification;
         copy.callintegJarPath = this.callintegJarPath;
         copy.smsUsername = this.smsUsername;
@@ -132,6 +132,13 @@ public class ConfigManager {
         }
     }
     
+    /**
+     * 获取配置目录路径
+     */
+    public static String getConfigDirectory() {
+        return CONFIG_DIR;
+    }
+    
     /**
      * 获取配置文件路径
      */
@@ -0,0 +1,120 @@
+package com.tcpdftool.config;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 附加检测区域配置
+ * 与主检测区域在同一次渲染中统计内容像素密度，尺寸和偏移均按页面百分比计算
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DetectionRegion {
+
+    @JsonProperty("name")
+    private String name = "";
+
+    @JsonProperty("widthPercent")
+    private double widthPercent = 20.0;
+
+    @JsonProperty("heightPercent")
+    private double heightPercent = 20.0;
+
+    // 中心点偏移（-100 ~ 100）：水平 -100左 +100右，垂直 -100上 +100下，0居中
+    @JsonProperty("horizontalOffsetPercent")
+    private int horizontalOffsetPercent = 0;
+
+    @JsonProperty("verticalOffsetPercent")
+    private int verticalOffsetPercent = 0;
+
+    @JsonProperty("densityThreshold")
+    private double densityThreshold = 0; // 百分比 - 区域密度低于该值判定为疑似空，<=0仅记录密度
+
+    public DetectionRegion() {
+    }
+
+    public DetectionRegion(String name, double widthPercent, double heightPercent,
+                           int horizontalOffsetPercent, int verticalOffsetPercent, double densityThreshold) {
+        this.name = name;
+        this.widthPercent = widthPercent;
+        this.heightPercent = heightPercent;
+        this.horizontalOffsetPercent = horizontalOffsetPercent;
+        this.verticalOffsetPercent = verticalOffsetPercent;
+        this.densityThreshold = densityThreshold;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public double getWidthPercent() {
+        return widthPercent;
+    }
+
+    public void setWidthPercent(double widthPercent) {
+        this.widthPercent = widthPercent;
+    }
+
+    public double getHeightPercent() {
+        return heightPercent;
+    }
+
+    public void setHeightPercent(double heightPercent) {
+        this.heightPercent = heightPercent;
+    }
+
+    public int getHorizontalOffsetPercent() {
+        return horizontalOffsetPercent;
+    }
+
+    public void setHorizontalOffsetPercent(int horizontalOffsetPercent) {
+        this.horizontalOffsetPercent = horizontalOffsetPercent;
+    }
+
+    public int getVerticalOffsetPercent() {
+        return verticalOffsetPercent;
+    }
+
+    public void setVerticalOffsetPercent(int verticalOffsetPercent) {
+        this.verticalOffsetPercent = verticalOffsetPercent;
+    }
+
+    public double getDensityThreshold() {
+        return densityThreshold;
+    }
+
+    public void setDensityThreshold(double densityThreshold) {
+        this.densityThreshold = densityThreshold;
+    }
+
+    /**
+     * 区域密度是否参与判定
+     */
+    @JsonIgnore
+    public boolean hasDensityThreshold() {
+        return densityThreshold > 0;
+    }
+
+    /**
+     * 影响检测结论的参数指纹
+     */
+    @JsonIgnore
+    public String getSettingsKey() {
+        return name + ":" + widthPercent + "x" + heightPercent + "@" + horizontalOffsetPercent + ","
+            + verticalOffsetPercent + ":" + densityThreshold;
+    }
+
+    public DetectionRegion copy() {
+        return new DetectionRegion(name, widthPercent, heightPercent,
+            horizontalOffsetPercent, verticalOffsetPercent, densityThreshold);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
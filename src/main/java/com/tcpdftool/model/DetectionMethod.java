@@ -0,0 +1,69 @@
+package com.tcpdftool.model;
+
+/**
+ * 内容检测判定方式枚举
+ * 记录最终由哪一级检测得出结论
+ */
+public enum DetectionMethod {
+    
+    /**
+     * 文件大小 - 未打开PDF
+     */
+    FILE_SIZE("文件大小", "文件大小低于阈值得出结论"),
+    
+    /**
+     * 结构预检 - 仅读取文件头尾
+     */
+    STRUCTURE_PRECHECK("结构预检", "文件头尾标记校验得出结论"),
+    
+    /**
+     * 文档结构 - 已加载PDF，未解析页面内容
+     */
+    DOCUMENT_STRUCTURE("文档结构", "文档没有页面得出结论"),
+    
+    /**
+     * 文本层 - 未渲染
+     */
+    TEXT_LAYER("文本层", "第一页可见字形数量充足得出结论"),
+    
+    /**
+     * 内容流预判 - 未渲染
+     */
+    CONTENT_STREAM("内容流预判", "解析页面绘制操作符得出结论"),
+    
+    /**
+     * 图像直读 - 单图像页面直接读取图像，未渲染
+     */
+    IMAGE_XOBJECT("图像直读", "单图像页面直接读取图像像素得出结论"),
+    
+    /**
+     * 低分辨率渲染
+     */
+    LOW_RESOLUTION_RENDER("低分辨率渲染", "低分辨率渲染结果远离阈值"),
+    
+    /**
+     * 标准分辨率渲染
+     */
+    STANDARD_RENDER("标准渲染", "标准分辨率渲染得出结论");
+    
+    private final String displayName;
+    private final String description;
+    
+    DetectionMethod(String displayName, String description) {
+        this.displayName = displayName;
+        this.description = description;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -30,6 +30,16 @@ public enum DetectionResult {
      */
     SUSPICIOUS_EMPTY_BOTH("疑似空", "低于文件大小阈值且内容密度低于阈值"),
     
+    /**
+     * 文件不完整 - 缺少文件头或文件尾标记（写入中断）
+     */
+    TRUNCATED("文件不完整", "缺少PDF文件头或文件尾"),
+    
+    /**
+     * 检测超时 - 超出单文件检测时限，已放弃渲染
+     */
+    TIMEOUT("检测超时", "超出单文件检测时限"),
+    
     /**
      * 检测失败
      */
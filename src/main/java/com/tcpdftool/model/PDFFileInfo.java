@@ -1,7 +1,10 @@
 package com.tcpdftool.model;
 
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * PDF文件信息模型
@@ -18,6 +21,10 @@ public class PDFFileInfo {
     private String errorMessage;
     private ReconversionStatus reconversionStatus;
     private String taskId;
+    private DetectionMethod detectionMethod;
+    private final Map<String, Long> stageTimings = new LinkedHashMap<>();
+    private final Map<String, Double> regionDensities = new LinkedHashMap<>();
+    private int[] luminanceHistogram;
     
     public PDFFileInfo(String fileName, String filePath, long fileSize, Date createTime) {
         this.fileName = fileName;
@@ -119,6 +126,75 @@ public class PDFFileInfo {
         this.taskId = taskId;
     }
     
+    public DetectionMethod getDetectionMethod() {
+        return detectionMethod;
+    }
+    
+    public void setDetectionMethod(DetectionMethod detectionMethod) {
+        this.detectionMethod = detectionMethod;
+    }
+    
+    /**
+     * 获取判定方式的显示文本
+     */
+    public String getDetectionMethodText() {
+        return detectionMethod != null ? detectionMethod.getDisplayName() : "-";
+    }
+    
+    /**
+     * 获取最近一次检测各阶段耗时（阶段名称 -> 纳秒），按执行顺序
+     */
+    public synchronized Map<String, Long> getStageTimings() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(stageTimings));
+    }
+    
+    /**
+     * 记录检测阶段耗时（纳秒）
+     */
+    public synchronized void addStageTiming(String stageName, long nanos) {
+        stageTimings.merge(stageName, nanos, Long::sum);
+    }
+    
+    /**
+     * 清除检测阶段耗时，重新检测前调用
+     */
+    public synchronized void clearStageTimings() {
+        stageTimings.clear();
+    }
+    
+    /**
+     * 获取最近一次渲染检测各区域的内容像素密度（区域名称 -> 百分比），按配置顺序
+     */
+    public synchronized Map<String, Double> getRegionDensities() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(regionDensities));
+    }
+    
+    /**
+     * 记录检测区域的内容像素密度（百分比）
+     */
+    public synchronized void putRegionDensity(String regionName, double densityPercent) {
+        regionDensities.put(regionName, densityPercent);
+    }
+    
+    /**
+     * 获取最近一次渲染检测的亮度直方图（256级灰度像素计数），未统计时为null
+     */
+    public synchronized int[] getLuminanceHistogram() {
+        return luminanceHistogram != null ? luminanceHistogram.clone() : null;
+    }
+    
+    public synchronized void setLuminanceHistogram(int[] luminanceHistogram) {
+        this.luminanceHistogram = luminanceHistogram != null ? luminanceHistogram.clone() : null;
+    }
+    
+    /**
+     * 清除区域密度和亮度直方图，重新检测前调用
+     */
+    public synchronized void clearRegionAnalysis() {
+        regionDensities.clear();
+        luminanceHistogram = null;
+    }
+    
     // 工具方法
     
     /**
@@ -156,7 +232,8 @@ public class PDFFileInfo {
     public boolean isSuspiciousEmpty() {
         return detectionResult == DetectionResult.SUSPICIOUS_EMPTY_SIZE ||
                detectionResult == DetectionResult.SUSPICIOUS_EMPTY_PIXELS ||
-               detectionResult == DetectionResult.SUSPICIOUS_EMPTY_BOTH;
+               detectionResult == DetectionResult.SUSPICIOUS_EMPTY_BOTH ||
+               detectionResult == DetectionResult.TRUNCATED;
     }
     
     /**
@@ -167,10 +244,11 @@ public class PDFFileInfo {
     }
     
     /**
-     * 是否检测失败
+     * 是否检测失败（含超时）
      */
     public boolean isDetectionFailed() {
-        return detectionResult == DetectionResult.DETECTION_FAILED;
+        return detectionResult == DetectionResult.DETECTION_FAILED ||
+               detectionResult == DetectionResult.TIMEOUT;
     }
     
     /**
@@ -183,7 +261,9 @@ public class PDFFileInfo {
             case SUSPICIOUS_EMPTY_SIZE:
             case SUSPICIOUS_EMPTY_PIXELS:
             case SUSPICIOUS_EMPTY_BOTH:
+            case TRUNCATED:
                 return "⚠";
+            case TIMEOUT:
             case DETECTION_FAILED:
                 return "✗";
             case PENDING:
@@ -210,6 +290,7 @@ public class PDFFileInfo {
                 ", fileSize=" + fileSize +
                 ", createTime=" + createTime +
                 ", detectionResult=" + detectionResult +
+                ", detectionMethod=" + detectionMethod +
                 ", notificationSent=" + notificationSent +
                 '}';
     }
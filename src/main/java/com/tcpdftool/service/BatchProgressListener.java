@@ -0,0 +1,17 @@
+package com.tcpdftool.service;
+
+import com.tcpdftool.model.PDFFileInfo;
+
+/**
+ * 批量检测进度监听
+ * 每个文件检测完成时调用一次（在检测线程中），重新转换状态变化不会重复触发
+ */
+public interface BatchProgressListener {
+    
+    /**
+     * @param fileInfo 刚完成检测的文件
+     * @param completed 本批已完成数量
+     * @param total 本批文件总数
+     */
+    void onFileCompleted(PDFFileInfo fileInfo, int completed, int total);
+}
@@ -0,0 +1,176 @@
+package com.tcpdftool.service;
+
+import com.tcpdftool.model.DetectionResult;
+import com.tcpdftool.model.PDFFileInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量检测结果
+ * 汇总一批文件的检测结论数量、疑似空/失败文件列表和各检测阶段耗时
+ */
+public class BatchResult {
+    
+    private final List<PDFFileInfo> files;
+    private final Map<DetectionResult, Integer> resultCounts;
+    private final List<PDFFileInfo> suspiciousFiles;
+    private final List<PDFFileInfo> failedFiles;
+    private final Map<String, StageTiming> stageTimings;
+    private final long elapsedMillis;
+    
+    BatchResult(List<PDFFileInfo> files, long elapsedMillis) {
+        this.files = Collections.unmodifiableList(new ArrayList<>(files));
+        this.elapsedMillis = elapsedMillis;
+        
+        Map<DetectionResult, Integer> counts = new EnumMap<>(DetectionResult.class);
+        List<PDFFileInfo> suspicious = new ArrayList<>();
+        List<PDFFileInfo> failed = new ArrayList<>();
+        Map<String, StageTiming> timings = new LinkedHashMap<>();
+        for (PDFFileInfo fileInfo : files) {
+            DetectionResult result = fileInfo.getDetectionResult();
+            counts.merge(result, 1, Integer::sum);
+            if (fileInfo.isSuspiciousEmpty()) {
+                suspicious.add(fileInfo);
+            } else if (fileInfo.isDetectionFailed()) {
+                failed.add(fileInfo);
+            }
+            for (Map.Entry<String, Long> timing : fileInfo.getStageTimings().entrySet()) {
+                timings.computeIfAbsent(timing.getKey(), StageTiming::new).add(timing.getValue());
+            }
+        }
+        this.resultCounts = Collections.unmodifiableMap(counts);
+        this.suspiciousFiles = Collections.unmodifiableList(suspicious);
+        this.failedFiles = Collections.unmodifiableList(failed);
+        this.stageTimings = Collections.unmodifiableMap(timings);
+    }
+    
+    /**
+     * 合并分批提交的检测结果，文件按各批顺序排列
+     * @param elapsedMillis 合并后的总耗时（由调用方从第一批提交时计起）
+     */
+    public static BatchResult combine(List<BatchResult> parts, long elapsedMillis) {
+        List<PDFFileInfo> files = new ArrayList<>();
+        for (BatchResult part : parts) {
+            files.addAll(part.getFiles());
+        }
+        return new BatchResult(files, elapsedMillis);
+    }
+    
+    /**
+     * 本批全部文件（提交顺序）
+     */
+    public List<PDFFileInfo> getFiles() {
+        return files;
+    }
+    
+    public int getTotalFiles() {
+        return files.size();
+    }
+    
+    /**
+     * 各检测结论的文件数量
+     */
+    public Map<DetectionResult, Integer> getResultCounts() {
+        return resultCounts;
+    }
+    
+    public int getCount(DetectionResult result) {
+        return resultCounts.getOrDefault(result, 0);
+    }
+    
+    /**
+     * 疑似空文件（含文件不完整）
+     */
+    public List<PDFFileInfo> getSuspiciousFiles() {
+        return suspiciousFiles;
+    }
+    
+    /**
+     * 检测失败或超时的文件
+     */
+    public List<PDFFileInfo> getFailedFiles() {
+        return failedFiles;
+    }
+    
+    /**
+     * 各检测阶段耗时汇总（阶段名称 -> 耗时），命中缓存的文件不计入
+     */
+    public Map<String, StageTiming> getStageTimings() {
+        return stageTimings;
+    }
+    
+    /**
+     * 从提交到全部完成的耗时
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append("共 ").append(getTotalFiles()).append(" 个文件, 正常 ").append(getCount(DetectionResult.NORMAL))
+            .append(", 疑似空 ").append(suspiciousFiles.size())
+            .append(", 失败 ").append(failedFiles.size())
+            .append(", 耗时 ").append(elapsedMillis).append("ms");
+        for (StageTiming timing : stageTimings.values()) {
+            text.append("; ").append(timing);
+        }
+        return text.toString();
+    }
+    
+    /**
+     * 单个检测阶段的耗时汇总
+     */
+    public static class StageTiming {
+        private final String stageName;
+        private int invocations;
+        private long totalNanos;
+        private long maxNanos;
+        
+        StageTiming(String stageName) {
+            this.stageName = stageName;
+        }
+        
+        void add(long nanos) {
+            invocations++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+        
+        public String getStageName() {
+            return stageName;
+        }
+        
+        /**
+         * 执行次数（被短路跳过的文件不计）
+         */
+        public int getInvocations() {
+            return invocations;
+        }
+        
+        public long getTotalMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+        }
+        
+        public long getMaxMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos);
+        }
+        
+        public double getAverageMillis() {
+            return invocations == 0 ? 0.0 : totalNanos / 1_000_000.0 / invocations;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%s: %d次, 合计 %dms, 平均 %.1fms, 最长 %dms",
+                stageName, invocations, getTotalMillis(), getAverageMillis(), getMaxMillis());
+        }
+    }
+}
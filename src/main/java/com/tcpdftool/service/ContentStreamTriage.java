@@ -0,0 +1,456 @@
+package com.tcpdftool.service;
+
+import com.tcpdftool.model.DetectionResult;
+import com.tcpdftool.service.stage.DetectionDeadline;
+import org.apache.pdfbox.contentstream.PDFGraphicsStreamEngine;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColor;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
+import org.apache.pdfbox.pdmodel.graphics.state.PDGraphicsState;
+import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.util.Matrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.BasicStroke;
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 内容流预判
+ * 在渲染前解析页面内容流，统计绘制类操作符（路径填充/描边、文本显示、图像XObject），
+ * 证据充分时直接给出结论，避免光栅化。
+ * 判定正常只统计落在检测区域内的绘制操作符，图框、标题栏等检测区域外的内容不计入，
+ * 且按各操作符在检测区域内的覆盖面积估算着墨比例，操作符数量和着墨比例都达标才判定正常，
+ * 避免一小块密集线条使大片空白区域被判为正常；
+ * 判定空白只在整页没有任何绘制操作符时成立
+ */
+public class ContentStreamTriage extends PDFGraphicsStreamEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentStreamTriage.class);
+
+    /**
+     * 接近白色的判定阈值，各颜色分量均高于该值的绘制视为背景
+     */
+    private static final int WHITE_THRESHOLD = 240;
+
+    /**
+     * 估算文字覆盖面积时每个字符的宽度（相对字号）
+     */
+    private static final double GLYPH_WIDTH_RATIO = 0.5;
+
+    /**
+     * 估算线条长度时曲线展平的精度（用户空间单位）
+     */
+    private static final double FLATNESS = 1.0;
+
+    private final int normalOperatorThreshold;
+    private final double normalInkArea;
+    private final Rectangle2D detectionArea;
+    private final DetectionDeadline deadline;
+
+    private final Point2D.Float currentPoint = new Point2D.Float();
+    private final Path2D.Double currentPath = new Path2D.Double();
+    private int pathPaintCount;
+    private int textShowCount;
+    private int imageDrawCount;
+    private int shadingFillCount;
+    private int areaPaintCount;
+    private double areaInk;
+
+    /**
+     * @param page 待预判页面
+     * @param detectionArea 检测区域（页面用户空间坐标）
+     * @param normalOperatorThreshold 检测区域内绘制操作符达到该数量且着墨比例达标时判定为正常
+     * @param normalCoverage 判定正常所需的检测区域着墨比例（0~1），与渲染检测的内容密度阈值一致
+     * @param deadline 检测时限，每个操作符检查一次
+     */
+    public ContentStreamTriage(PDPage page, Rectangle2D detectionArea, int normalOperatorThreshold,
+                               double normalCoverage, DetectionDeadline deadline) {
+        super(page);
+        this.detectionArea = detectionArea;
+        this.normalOperatorThreshold = Math.max(1, normalOperatorThreshold);
+        this.normalInkArea = area(detectionArea) * Math.max(0, normalCoverage);
+        this.deadline = deadline;
+    }
+
+    /**
+     * 执行预判
+     * @return NORMAL 或 SUSPICIOUS_EMPTY_PIXELS；证据不足时返回null，需继续渲染检测
+     */
+    public DetectionResult triage() throws IOException {
+        PDPage page = getPage();
+        try {
+            processPage(page);
+        } catch (DecidedException e) {
+            logger.debug("内容流预判提前结束 - 检测区域内绘制操作符已达 {} 个，估算着墨 {}%",
+                areaPaintCount, String.format("%.1f", getAreaCoverage() * 100));
+            return DetectionResult.NORMAL;
+        }
+
+        int paintCount = getPaintOperatorCount();
+        logger.debug("内容流预判 - 路径绘制: {}, 文本显示: {}, 图像: {}, 渐变填充: {}, 检测区域内: {}, 估算着墨: {}%",
+            pathPaintCount, textShowCount, imageDrawCount, shadingFillCount, areaPaintCount,
+            String.format("%.1f", getAreaCoverage() * 100));
+
+        // 没有任何绘制操作且没有带外观的注释，渲染结果必然是空白页
+        if (paintCount == 0 && !hasVisibleAnnotations(page)) {
+            return DetectionResult.SUSPICIOUS_EMPTY_PIXELS;
+        }
+        return null;
+    }
+
+    /**
+     * 获取已统计的绘制操作符总数
+     */
+    public int getPaintOperatorCount() {
+        return pathPaintCount + textShowCount + imageDrawCount + shadingFillCount;
+    }
+
+    /**
+     * 获取落在检测区域内的绘制操作符数
+     */
+    public int getAreaPaintOperatorCount() {
+        return areaPaintCount;
+    }
+
+    /**
+     * 获取按覆盖面积估算的检测区域着墨比例（重叠部分重复计入，可能超过1）
+     */
+    public double getAreaCoverage() {
+        double total = area(detectionArea);
+        return total > 0 ? areaInk / total : 0;
+    }
+
+    @Override
+    protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+        deadline.check();
+        String name = operator.getName();
+        // 文本显示只计数，不解析字形，避免加载字体
+        if ("Tj".equals(name) || "TJ".equals(name) || "'".equals(name) || "\"".equals(name)) {
+            textShowCount++;
+            if (isVisibleTextInArea()) {
+                countInArea(estimateTextInk(operands));
+            }
+            return;
+        }
+        super.processOperator(operator, operands);
+    }
+
+    @Override
+    public void appendRectangle(Point2D p0, Point2D p1, Point2D p2, Point2D p3) {
+        currentPath.moveTo(p0.getX(), p0.getY());
+        currentPath.lineTo(p1.getX(), p1.getY());
+        currentPath.lineTo(p2.getX(), p2.getY());
+        currentPath.lineTo(p3.getX(), p3.getY());
+        currentPath.closePath();
+        currentPoint.setLocation(p0);
+    }
+
+    @Override
+    public void drawImage(PDImage pdImage) {
+        imageDrawCount++;
+        // 图像边缘落在检测区域内才计入；铺满检测区域的图像（如扫描的空白图纸）内容未知，交给渲染检测
+        Rectangle2D bounds = getGraphicsState().getCurrentTransformationMatrix().createAffineTransform()
+            .createTransformedShape(new Rectangle2D.Double(0, 0, 1, 1)).getBounds2D();
+        if (intersectsArea(bounds) && !bounds.contains(detectionArea)) {
+            countInArea(clippedInk(bounds));
+        }
+    }
+
+    @Override
+    public void clip(int windingRule) {
+    }
+
+    @Override
+    public void moveTo(float x, float y) {
+        currentPath.moveTo(x, y);
+        currentPoint.setLocation(x, y);
+    }
+
+    @Override
+    public void lineTo(float x, float y) {
+        currentPath.lineTo(x, y);
+        currentPoint.setLocation(x, y);
+    }
+
+    @Override
+    public void curveTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+        currentPath.curveTo(x1, y1, x2, y2, x3, y3);
+        currentPoint.setLocation(x3, y3);
+    }
+
+    @Override
+    public Point2D getCurrentPoint() {
+        return currentPoint;
+    }
+
+    @Override
+    public void closePath() {
+        currentPath.closePath();
+    }
+
+    @Override
+    public void endPath() {
+        currentPath.reset();
+    }
+
+    @Override
+    public void strokePath() {
+        pathPaintCount++;
+        if (isStrokeInArea()) {
+            countInArea(estimateStrokeInk());
+        }
+        currentPath.reset();
+    }
+
+    @Override
+    public void fillPath(int windingRule) {
+        pathPaintCount++;
+        if (isFillInArea()) {
+            countInArea(clippedInk(currentPath.getBounds2D()));
+        }
+        currentPath.reset();
+    }
+
+    @Override
+    public void fillAndStrokePath(int windingRule) {
+        pathPaintCount++;
+        if (isFillInArea()) {
+            countInArea(clippedInk(currentPath.getBounds2D()));
+        } else if (isStrokeInArea()) {
+            countInArea(estimateStrokeInk());
+        }
+        currentPath.reset();
+    }
+
+    @Override
+    public void shadingFill(COSName shadingName) {
+        // 渐变填充范围取决于裁剪路径，无法可靠判断是否落在检测区域内，只计入整页统计
+        shadingFillCount++;
+    }
+
+    /**
+     * 记录一个检测区域内的绘制操作符，数量和着墨面积都达到阈值后中止解析
+     * @param ink 该操作符在检测区域内的估算着墨面积（用户空间单位）
+     */
+    private void countInArea(double ink) {
+        areaPaintCount++;
+        areaInk += ink;
+        if (areaPaintCount >= normalOperatorThreshold && areaInk >= normalInkArea) {
+            throw new DecidedException();
+        }
+    }
+
+    /**
+     * 估算描边在检测区域内的着墨面积：线条长度乘线宽，不超过描边外接矩形落在检测区域内的面积
+     */
+    private double estimateStrokeInk() {
+        double lineWidth = getDeviceLineWidth();
+        Rectangle2D pathBounds = currentPath.getBounds2D();
+        double halfWidth = lineWidth / 2.0;
+        Rectangle2D bounds = new Rectangle2D.Double(pathBounds.getX() - halfWidth, pathBounds.getY() - halfWidth,
+            pathBounds.getWidth() + lineWidth, pathBounds.getHeight() + lineWidth);
+
+        double length = 0;
+        double[] coords = new double[6];
+        double startX = 0;
+        double startY = 0;
+        double lastX = 0;
+        double lastY = 0;
+        for (PathIterator it = currentPath.getPathIterator(null, FLATNESS); !it.isDone(); it.next()) {
+            switch (it.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                    startX = coords[0];
+                    startY = coords[1];
+                    break;
+                case PathIterator.SEG_LINETO:
+                    length += Math.hypot(coords[0] - lastX, coords[1] - lastY);
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    length += Math.hypot(startX - lastX, startY - lastY);
+                    coords[0] = startX;
+                    coords[1] = startY;
+                    break;
+                default:
+                    break;
+            }
+            lastX = coords[0];
+            lastY = coords[1];
+        }
+        return Math.min(length * lineWidth, clippedInk(bounds));
+    }
+
+    /**
+     * 估算文字的着墨面积：字符数 x 字宽 x 字高，不解析字形
+     */
+    private double estimateTextInk(List<COSBase> operands) {
+        int characters = 0;
+        for (COSBase operand : operands) {
+            if (operand instanceof COSString) {
+                characters += ((COSString) operand).getBytes().length;
+            } else if (operand instanceof COSArray) {
+                for (COSBase element : (COSArray) operand) {
+                    if (element instanceof COSString) {
+                        characters += ((COSString) element).getBytes().length;
+                    }
+                }
+            }
+        }
+        PDGraphicsState state = getGraphicsState();
+        Matrix textMatrix = getTextMatrix();
+        if (textMatrix == null) {
+            return 0;
+        }
+        Matrix matrix = textMatrix.multiply(state.getCurrentTransformationMatrix());
+        double size = state.getTextState().getFontSize() * matrix.getScalingFactorY();
+        double width = size * GLYPH_WIDTH_RATIO * state.getTextState().getHorizontalScaling() / 100.0;
+        return Math.abs(characters * width * size);
+    }
+
+    /**
+     * 外接矩形落在检测区域（扣除当前裁剪范围）内的面积
+     */
+    private double clippedInk(Rectangle2D bounds) {
+        Rectangle2D area = clippedArea();
+        if (area.isEmpty()) {
+            return 0;
+        }
+        Rectangle2D overlap = new Rectangle2D.Double();
+        Rectangle2D.intersect(area, bounds, overlap);
+        return area(overlap);
+    }
+
+    /**
+     * 矩形面积，空矩形为0
+     */
+    private static double area(Rectangle2D rectangle) {
+        return rectangle.isEmpty() ? 0 : rectangle.getWidth() * rectangle.getHeight();
+    }
+
+    /**
+     * 当前线宽换算到页面用户空间，至少按1个单位（72 DPI渲染下的1个像素）计
+     */
+    private float getDeviceLineWidth() {
+        Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
+        return Math.max(getGraphicsState().getLineWidth() * (float) Math.sqrt(Math.abs(
+            ctm.getScaleX() * ctm.getScaleY() - ctm.getShearX() * ctm.getShearY())), 1f);
+    }
+
+    /**
+     * 描边线条本身是否穿过检测区域
+     * 仅外接矩形相交不够：包围整页的图框外接矩形必然覆盖检测区域，但线条都在区域外
+     */
+    private boolean isStrokeInArea() {
+        float lineWidth = getDeviceLineWidth();
+        // 水平/竖直线条的路径外接矩形面积为0，按线宽外扩后再判断相交
+        Rectangle2D pathBounds = currentPath.getBounds2D();
+        double halfWidth = lineWidth / 2.0;
+        Rectangle2D bounds = new Rectangle2D.Double(pathBounds.getX() - halfWidth, pathBounds.getY() - halfWidth,
+            pathBounds.getWidth() + lineWidth, pathBounds.getHeight() + lineWidth);
+        if (!intersectsArea(bounds) || isNearWhite(getGraphicsState().getStrokingColor())) {
+            return false;
+        }
+        if (clippedArea().contains(bounds)) {
+            return true;
+        }
+        Shape stroked = new BasicStroke(lineWidth).createStrokedShape(currentPath);
+        return stroked.intersects(clippedArea());
+    }
+
+    /**
+     * 填充区域的边缘是否落在检测区域内
+     * 完整覆盖检测区域的填充（如背景色块）不构成内容
+     */
+    private boolean isFillInArea() {
+        Rectangle2D bounds = currentPath.getBounds2D();
+        if (!intersectsArea(bounds) || isNearWhite(getGraphicsState().getNonStrokingColor())) {
+            return false;
+        }
+        return !currentPath.contains(detectionArea);
+    }
+
+    /**
+     * 文本是否可见且起点落在检测区域内（只取文本矩阵原点，不解析字形宽度）
+     */
+    private boolean isVisibleTextInArea() {
+        PDGraphicsState state = getGraphicsState();
+        RenderingMode mode = state.getTextState().getRenderingMode();
+        if (mode == RenderingMode.NEITHER || mode == RenderingMode.NEITHER_CLIP) {
+            return false;
+        }
+        if (mode.isFill() ? isNearWhite(state.getNonStrokingColor()) : isNearWhite(state.getStrokingColor())) {
+            return false;
+        }
+        Matrix textMatrix = getTextMatrix();
+        if (textMatrix == null) {
+            return false;
+        }
+        Matrix origin = textMatrix.multiply(state.getCurrentTransformationMatrix());
+        return clippedArea().contains(origin.getTranslateX(), origin.getTranslateY());
+    }
+
+    /**
+     * 外接矩形是否与检测区域（扣除当前裁剪范围）相交
+     */
+    private boolean intersectsArea(Rectangle2D bounds) {
+        Rectangle2D area = clippedArea();
+        return !area.isEmpty() && bounds.intersects(area);
+    }
+
+    /**
+     * 检测区域与当前裁剪路径外接矩形的交集
+     */
+    private Rectangle2D clippedArea() {
+        Rectangle2D clipBounds = getGraphicsState().getCurrentClippingPath().getBounds2D();
+        Rectangle2D area = new Rectangle2D.Double();
+        Rectangle2D.intersect(detectionArea, clipBounds, area);
+        return area;
+    }
+
+    /**
+     * 颜色是否接近白色，无法转换时按非白色处理
+     */
+    private static boolean isNearWhite(PDColor color) {
+        try {
+            int rgb = color.toRGB();
+            return ((rgb >> 16) & 0xFF) > WHITE_THRESHOLD
+                && ((rgb >> 8) & 0xFF) > WHITE_THRESHOLD
+                && (rgb & 0xFF) > WHITE_THRESHOLD;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 判断页面是否包含带外观流的注释（渲染时会绘制）
+     */
+    private boolean hasVisibleAnnotations(PDPage page) throws IOException {
+        for (PDAnnotation annotation : page.getAnnotations()) {
+            if (!annotation.isHidden() && !annotation.isNoView() && annotation.getNormalAppearanceStream() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 结论已确定时用于跳出内容流解析
+     */
+    private static class DecidedException extends RuntimeException {
+        DecidedException() {
+            super(null, null, false, false);
+        }
+    }
+}
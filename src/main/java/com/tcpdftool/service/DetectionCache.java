@@ -0,0 +1,266 @@
+package com.tcpdftool.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcpdftool.model.DetectionMethod;
+import com.tcpdftool.model.DetectionResult;
+import com.tcpdftool.model.PDFFileInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * 检测结果持久化缓存
+ * 以 路径 + 大小 + 修改时间（可选内容摘要）为键保存检测结论，
+ * 文件未变化时无需再次打开PDF；检测相关配置变化时整体失效
+ */
+public class DetectionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DetectionCache.class);
+
+    /**
+     * 累计多少条变更后写盘一次
+     */
+    private static final int SAVE_EVERY = 500;
+
+    /**
+     * 内容摘要读取的头尾字节数
+     */
+    private static final int HASH_SAMPLE_BYTES = 64 * 1024;
+
+    /**
+     * 修改时间距今不足该值的文件可能仍在写入，不完整结论不缓存
+     */
+    static final long TRUNCATED_MIN_AGE_MILLIS = 5000;
+
+    private final File cacheFile;
+    private final String settingsKey;
+    private final boolean useContentHash;
+    private final ObjectMapper objectMapper;
+    private final ConcurrentHashMap<String, Entry> entries;
+    private final AtomicInteger unsavedChanges;
+
+    /**
+     * @param cacheFile 缓存文件
+     * @param settingsKey 检测相关配置的指纹，与缓存文件中记录的不一致时丢弃旧缓存
+     * @param useContentHash 是否额外校验文件头尾内容摘要
+     */
+    public DetectionCache(File cacheFile, String settingsKey, boolean useContentHash) {
+        this.cacheFile = cacheFile;
+        this.settingsKey = settingsKey;
+        this.useContentHash = useContentHash;
+        this.objectMapper = new ObjectMapper();
+        this.entries = new ConcurrentHashMap<>();
+        this.unsavedChanges = new AtomicInteger();
+    }
+
+    /**
+     * 从磁盘加载缓存
+     */
+    public void load() {
+        if (!cacheFile.exists()) {
+            return;
+        }
+
+        try {
+            CacheData data = objectMapper.readValue(cacheFile, CacheData.class);
+            if (!Objects.equals(settingsKey, data.settingsKey)) {
+                logger.info("检测配置已变化，丢弃检测结果缓存: {}", cacheFile.getAbsolutePath());
+                unsavedChanges.incrementAndGet();
+                return;
+            }
+            if (data.entries != null) {
+                entries.putAll(data.entries);
+            }
+            logger.info("检测结果缓存加载完成，共 {} 条: {}", entries.size(), cacheFile.getAbsolutePath());
+        } catch (IOException e) {
+            logger.warn("读取检测结果缓存失败，将重新建立: {} - {}", cacheFile.getAbsolutePath(), e.getMessage());
+        }
+    }
+
+    /**
+     * 写盘（先写临时文件再替换，避免中途退出损坏缓存）
+     */
+    public synchronized void save() {
+        if (unsavedChanges.getAndSet(0) == 0) {
+            return;
+        }
+
+        try {
+            File parent = cacheFile.getParentFile();
+            if (parent != null) {
+                Files.createDirectories(parent.toPath());
+            }
+
+            CacheData data = new CacheData();
+            data.settingsKey = settingsKey;
+            data.entries = new HashMap<>(entries);
+
+            File tempFile = new File(cacheFile.getAbsolutePath() + ".tmp");
+            objectMapper.writeValue(tempFile, data);
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            logger.debug("检测结果缓存已保存，共 {} 条", data.entries.size());
+        } catch (IOException e) {
+            logger.warn("保存检测结果缓存失败: {} - {}", cacheFile.getAbsolutePath(), e.getMessage());
+        }
+    }
+
+    /**
+     * 查找文件的缓存结论，文件已变化或无缓存时返回null
+     */
+    public Entry lookup(File file) {
+        Entry entry = entries.get(file.getAbsolutePath());
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.fileSize != file.length() || entry.lastModified != file.lastModified()) {
+            return null;
+        }
+
+        if (useContentHash) {
+            Long hash = computeContentHash(file);
+            if (hash == null || !hash.equals(entry.contentHash)) {
+                return null;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 保存文件的检测结论；检测失败和超时的结果不缓存，下次重新检测；
+     * 刚修改过的文件可能仍在写入，其不完整结论也不缓存
+     */
+    public void store(File file, PDFFileInfo fileInfo) {
+        DetectionResult result = fileInfo.getDetectionResult();
+        if (result == null || result == DetectionResult.PENDING || result == DetectionResult.DETECTION_FAILED
+                || result == DetectionResult.TIMEOUT) {
+            return;
+        }
+        if (result == DetectionResult.TRUNCATED && isRecentlyModified(file)) {
+            return;
+        }
+
+        Entry entry = new Entry();
+        entry.fileSize = file.length();
+        entry.lastModified = file.lastModified();
+        entry.contentHash = useContentHash ? computeContentHash(file) : null;
+        entry.result = result;
+        entry.method = fileInfo.getDetectionMethod();
+        entry.errorMessage = fileInfo.getErrorMessage();
+        entries.put(file.getAbsolutePath(), entry);
+
+        if (unsavedChanges.incrementAndGet() >= SAVE_EVERY) {
+            save();
+        }
+    }
+
+    /**
+     * 文件修改时间距今是否不足 {@link #TRUNCATED_MIN_AGE_MILLIS}
+     */
+    static boolean isRecentlyModified(File file) {
+        return System.currentTimeMillis() - file.lastModified() < TRUNCATED_MIN_AGE_MILLIS;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        entries.clear();
+        unsavedChanges.incrementAndGet();
+    }
+
+    /**
+     * 缓存条目数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 计算文件头尾内容的CRC32摘要
+     */
+    private Long computeContentHash(File file) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[HASH_SAMPLE_BYTES];
+            long length = raf.length();
+
+            int headLength = (int) Math.min(HASH_SAMPLE_BYTES, length);
+            raf.readFully(buffer, 0, headLength);
+            crc.update(buffer, 0, headLength);
+
+            if (length > HASH_SAMPLE_BYTES) {
+                long tailStart = Math.max(headLength, length - HASH_SAMPLE_BYTES);
+                int tailLength = (int) (length - tailStart);
+                raf.seek(tailStart);
+                raf.readFully(buffer, 0, tailLength);
+                crc.update(buffer, 0, tailLength);
+            }
+            return crc.getValue();
+        } catch (IOException e) {
+            logger.debug("计算文件摘要失败: {} - {}", file.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 缓存条目
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Entry {
+        @JsonProperty("fileSize")
+        private long fileSize;
+
+        @JsonProperty("lastModified")
+        private long lastModified;
+
+        @JsonProperty("contentHash")
+        private Long contentHash;
+
+        @JsonProperty("result")
+        private DetectionResult result;
+
+        @JsonProperty("method")
+        private DetectionMethod method;
+
+        @JsonProperty("errorMessage")
+        private String errorMessage;
+
+        public DetectionResult getResult() {
+            return result;
+        }
+
+        public DetectionMethod getMethod() {
+            return method;
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+    }
+
+    /**
+     * 缓存文件内容
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private static class CacheData {
+        @JsonProperty("settingsKey")
+        private String settingsKey;
+
+        @JsonProperty("entries")
+        private Map<String, Entry> entries;
+    }
+}
@@ -0,0 +1,68 @@
+package com.tcpdftool.service;
+
+import com.tcpdftool.model.PDFFileInfo;
+
+/**
+ * 同一优先级内的检测顺序
+ */
+public enum DetectionOrder {
+    
+    /**
+     * 按提交顺序
+     */
+    FIFO("提交顺序"),
+    
+    /**
+     * 文件越小越先检测
+     */
+    SMALLEST_FIRST("小文件优先"),
+    
+    /**
+     * 修改时间越新越先检测
+     */
+    NEWEST_FIRST("新文件优先");
+    
+    private final String displayName;
+    
+    DetectionOrder(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * 计算排序键，值越小越先检测；相同时按提交顺序
+     */
+    public long sortKey(PDFFileInfo fileInfo) {
+        switch (this) {
+            case SMALLEST_FIRST:
+                return fileInfo.getFileSize();
+            case NEWEST_FIRST:
+                return fileInfo.getCreateTime() == null ? 0L : -fileInfo.getCreateTime().getTime();
+            case FIFO:
+            default:
+                return 0L;
+        }
+    }
+    
+    /**
+     * 解析配置值，无法识别时使用NEWEST_FIRST
+     */
+    public static DetectionOrder parse(String value) {
+        if (value != null) {
+            for (DetectionOrder order : values()) {
+                if (order.name().equalsIgnoreCase(value.trim())) {
+                    return order;
+                }
+            }
+        }
+        return NEWEST_FIRST;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,33 @@
+package com.tcpdftool.service;
+
+/**
+ * 检测任务优先级分类
+ * 分类优先于排序规则：实时文件总是先于积压文件检测
+ */
+public enum DetectionPriority {
+    
+    /**
+     * 文件监控实时发现的新文件
+     */
+    LIVE("实时"),
+    
+    /**
+     * 初始扫描、定时扫描、刷新、重新检测产生的积压文件
+     */
+    BACKLOG("积压");
+    
+    private final String displayName;
+    
+    DetectionPriority(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
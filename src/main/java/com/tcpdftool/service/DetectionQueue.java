@@ -0,0 +1,299 @@
+package com.tcpdftool.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 有界检测任务队列
+ * 工作线程数和排队上限固定，队列满时提交方阻塞等待（或在超时后被拒绝），
+ * 避免大批量扫描一次性堆积全部任务；同时统计排队深度、等待时间和拒绝次数供生产方限流。
+ * 排队任务按 优先级分类 -> 排序键 -> 提交顺序 出队，实时文件不受积压任务阻挡
+ */
+public class DetectionQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(DetectionQueue.class);
+
+    private final int poolSize;
+    private final int capacity;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 准入许可：执行中 + 排队中的积压任务总数不超过 poolSize + capacity
+     */
+    private final Semaphore permits;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong blockedCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * @param name 线程名前缀
+     * @param poolSize 工作线程数
+     * @param capacity 排队上限（不含执行中的任务）
+     */
+    public DetectionQueue(String name, int poolSize, int capacity) {
+        this.poolSize = Math.max(1, poolSize);
+        this.capacity = Math.max(1, capacity);
+        this.permits = new Semaphore(this.poolSize + this.capacity);
+        // 容量由准入许可控制，优先队列本身不设上限
+        this.executor = new ThreadPoolExecutor(this.poolSize, this.poolSize, 0L, TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<>(), new NamedThreadFactory(name));
+        logger.info("检测队列已创建 - 工作线程: {}, 排队上限: {}", this.poolSize, this.capacity);
+    }
+
+    /**
+     * 提交任务，队列已满时阻塞直到有空位
+     * 实时任务不受排队上限限制（只用于文件监控事件，数量取决于文件实际到达速度），直接插队到积压任务之前；
+     * 扫描批量发现的文件应按积压任务提交
+     * @param sortKey 同一优先级内的排序键，越小越先执行
+     * @throws RejectedExecutionException 队列已关闭或等待期间被中断
+     */
+    public void submit(Runnable task, DetectionPriority priority, long sortKey) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("检测队列已关闭");
+        }
+        if (priority == DetectionPriority.LIVE) {
+            execute(new PrioritizedTask(task, priority, sortKey, sequence.getAndIncrement(), false));
+            return;
+        }
+
+        long start = System.nanoTime();
+        if (!permits.tryAcquire()) {
+            blockedCount.incrementAndGet();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejectedCount.incrementAndGet();
+                throw new RejectedExecutionException("等待检测队列空位时被中断", e);
+            }
+        }
+        recordWait(System.nanoTime() - start);
+        execute(new PrioritizedTask(task, priority, sortKey, sequence.getAndIncrement(), true));
+    }
+
+    /**
+     * 尝试提交任务，队列在超时时间内仍然已满则放弃并计入拒绝次数
+     * @return 是否已提交
+     */
+    public boolean trySubmit(Runnable task, DetectionPriority priority, long sortKey,
+                             long timeout, TimeUnit unit) {
+        if (executor.isShutdown()) {
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+        if (priority == DetectionPriority.LIVE) {
+            execute(new PrioritizedTask(task, priority, sortKey, sequence.getAndIncrement(), false));
+            return true;
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+        recordWait(System.nanoTime() - start);
+        execute(new PrioritizedTask(task, priority, sortKey, sequence.getAndIncrement(), true));
+        return true;
+    }
+
+    /**
+     * 交给线程池执行，任务结束（含异常）时归还已取得的许可
+     */
+    private void execute(PrioritizedTask task) {
+        try {
+            executor.execute(task);
+            submittedCount.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            if (task.holdsPermit) {
+                permits.release();
+            }
+            rejectedCount.incrementAndGet();
+            throw e;
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        long max;
+        do {
+            max = maxWaitNanos.get();
+        } while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos));
+    }
+
+    /**
+     * 当前排队中（未开始执行）的任务数
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * 当前执行中的任务数
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * 队列是否已满（新的提交将阻塞）
+     */
+    public boolean isSaturated() {
+        return permits.availablePermits() == 0;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    /**
+     * 被拒绝（超时未取得空位或队列已关闭）的提交次数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * 因队列已满而阻塞等待过的提交次数
+     */
+    public long getBlockedCount() {
+        return blockedCount.get();
+    }
+
+    /**
+     * 提交方累计等待时间（毫秒）
+     */
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+    }
+
+    /**
+     * 提交方单次最长等待时间（毫秒）
+     */
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    /**
+     * 停止接收新任务，已提交的任务继续执行
+     */
+    public void shutdown() {
+        executor.shutdown();
+        logger.info("检测队列关闭 - 已提交: {}, 已完成: {}, 阻塞: {}, 拒绝: {}, 累计等待: {}ms",
+            getSubmittedCount(), getCompletedCount(), getBlockedCount(), getRejectedCount(), getTotalWaitMillis());
+    }
+
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    /**
+     * 等待已提交的任务执行完毕
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("排队: %d/%d, 执行中: %d/%d, 阻塞: %d, 拒绝: %d, 累计等待: %dms",
+            getQueueDepth(), capacity, getActiveCount(), poolSize,
+            getBlockedCount(), getRejectedCount(), getTotalWaitMillis());
+    }
+
+    /**
+     * 带优先级的排队任务
+     */
+    private class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final Runnable task;
+        private final DetectionPriority priority;
+        private final long sortKey;
+        private final long sequence;
+        private final boolean holdsPermit;
+
+        PrioritizedTask(Runnable task, DetectionPriority priority, long sortKey, long sequence,
+                        boolean holdsPermit) {
+            this.task = task;
+            this.priority = priority;
+            this.sortKey = sortKey;
+            this.sequence = sequence;
+            this.holdsPermit = holdsPermit;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } finally {
+                completedCount.incrementAndGet();
+                if (holdsPermit) {
+                    permits.release();
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int result = priority.compareTo(other.priority);
+            if (result == 0) {
+                result = Long.compare(sortKey, other.sortKey);
+            }
+            if (result == 0) {
+                result = Long.compare(sequence, other.sequence);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 带名称的工作线程工厂
+     */
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger index = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
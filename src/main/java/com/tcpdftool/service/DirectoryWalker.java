@@ -0,0 +1,257 @@
+package com.tcpdftool.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * 增量目录遍历
+ * 记录每个目录上次列举时的修改时间和子目录列表；目录修改时间未变化说明其直接子项没有增删，
+ * 再次遍历时不列举该目录、不读取其中文件的属性，只沿记录的子目录继续向下。
+ * 目录修改时间只反映直接子项的变化，因此子目录仍需逐个检查，不能整棵跳过。
+ * 网络盘上每次列举和读取属性都是一次往返，可按目录并行遍历以重叠这些等待
+ */
+public class DirectoryWalker {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryWalker.class);
+    
+    /**
+     * 修改时间精度余量：列举时距修改时间不足该值的目录，可能在同一时间刻度内再次变化，下次仍需列举
+     */
+    private static final long MTIME_GRANULARITY_MILLIS = 2000;
+    
+    private static final ForkJoinPool.ForkJoinWorkerThreadFactory WORKER_THREAD_FACTORY = pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("DirectoryWalker-" + thread.getPoolIndex());
+        return thread;
+    };
+    
+    private final Map<Path, DirectorySnapshot> snapshots = new ConcurrentHashMap<>();
+    
+    /**
+     * 遍历目录树，对列举到的非目录项回调
+     * @param incremental 是否跳过修改时间未变化的目录；为false时列举全部目录并重建记录
+     * @param parallelism 并行遍历的线程数，<=1时在调用线程中顺序遍历；
+     *                    并行时回调在多个线程中并发执行且顺序不确定，发现的文件集合与顺序遍历相同
+     * @return 遍历统计
+     */
+    public WalkStats walk(Path root, boolean includeSubdirectories, boolean incremental, int parallelism,
+                          Consumer<Path> fileVisitor) throws IOException {
+        long startTime = System.currentTimeMillis();
+        
+        // 根目录不可访问时向调用方报告
+        Files.readAttributes(root, BasicFileAttributes.class);
+        WalkContext context = new WalkContext(includeSubdirectories, incremental, fileVisitor);
+        WalkStats stats;
+        if (parallelism > 1) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism, WORKER_THREAD_FACTORY, null, false);
+            try {
+                stats = pool.invoke(new DirectoryTask(root, context));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            stats = new WalkStats();
+            walkSequentially(root, context, stats);
+        }
+        
+        // 已删除或不再遍历的目录不再保留记录
+        snapshots.keySet().retainAll(context.visited);
+        stats.elapsedMillis = System.currentTimeMillis() - startTime;
+        return stats;
+    }
+    
+    private void walkSequentially(Path dir, WalkContext context, WalkStats stats) {
+        List<Path> subdirectories = visitDirectory(dir, context, stats);
+        for (Path subdirectory : subdirectories) {
+            walkSequentially(subdirectory, context, stats);
+        }
+    }
+    
+    /**
+     * 处理单个目录：未变化时沿用记录，否则重新列举并回调其中的文件
+     * @return 需要继续遍历的子目录，不含子目录或目录不可访问时为空
+     */
+    private List<Path> visitDirectory(Path dir, WalkContext context, WalkStats stats) {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(dir, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            logger.debug("无法访问目录，跳过: {} - {}", dir, e.getMessage());
+            return Collections.emptyList();
+        }
+        if (!attrs.isDirectory()) {
+            return Collections.emptyList();
+        }
+        context.visited.add(dir);
+        stats.directories++;
+        
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        DirectorySnapshot snapshot = snapshots.get(dir);
+        List<Path> subdirectories;
+        if (context.incremental && snapshot != null && snapshot.isUnchanged(lastModified)) {
+            stats.skippedDirectories++;
+            subdirectories = snapshot.subdirectories;
+        } else {
+            long listedAt = System.currentTimeMillis();
+            subdirectories = listDirectory(dir, context.fileVisitor, stats);
+            if (subdirectories == null) {
+                snapshots.remove(dir);
+                return Collections.emptyList();
+            }
+            snapshots.put(dir, new DirectorySnapshot(lastModified, listedAt, subdirectories));
+        }
+        return context.includeSubdirectories ? subdirectories : Collections.emptyList();
+    }
+    
+    /**
+     * 列举目录，回调其中的非目录项
+     * @return 子目录列表，目录无法读取时返回null
+     */
+    private List<Path> listDirectory(Path dir, Consumer<Path> fileVisitor, WalkStats stats) {
+        List<Path> subdirectories = new ArrayList<>();
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+            for (Path child : children) {
+                if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    subdirectories.add(child);
+                } else {
+                    stats.files++;
+                    fileVisitor.accept(child);
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("无法列举目录，跳过: {} - {}", dir, e.getMessage());
+            return null;
+        }
+        return Collections.unmodifiableList(subdirectories);
+    }
+    
+    /**
+     * 清除目录记录，下次遍历列举全部目录
+     */
+    public void reset() {
+        snapshots.clear();
+    }
+    
+    /**
+     * 并行遍历任务：每个目录一个任务，子目录各自分叉，统计逐级汇总
+     */
+    private class DirectoryTask extends RecursiveTask<WalkStats> {
+        private final Path dir;
+        private final WalkContext context;
+        
+        DirectoryTask(Path dir, WalkContext context) {
+            this.dir = dir;
+            this.context = context;
+        }
+        
+        @Override
+        protected WalkStats compute() {
+            WalkStats stats = new WalkStats();
+            List<Path> subdirectories = visitDirectory(dir, context, stats);
+            if (subdirectories.isEmpty()) {
+                return stats;
+            }
+            List<DirectoryTask> subtasks = new ArrayList<>(subdirectories.size());
+            for (Path subdirectory : subdirectories) {
+                subtasks.add(new DirectoryTask(subdirectory, context));
+            }
+            for (DirectoryTask subtask : invokeAll(subtasks)) {
+                stats.add(subtask.join());
+            }
+            return stats;
+        }
+    }
+    
+    /**
+     * 单次遍历的参数和已访问目录
+     */
+    private static class WalkContext {
+        private final boolean includeSubdirectories;
+        private final boolean incremental;
+        private final Consumer<Path> fileVisitor;
+        private final Set<Path> visited = ConcurrentHashMap.newKeySet();
+        
+        WalkContext(boolean includeSubdirectories, boolean incremental, Consumer<Path> fileVisitor) {
+            this.includeSubdirectories = includeSubdirectories;
+            this.incremental = incremental;
+            this.fileVisitor = fileVisitor;
+        }
+    }
+    
+    /**
+     * 目录上次列举时的状态
+     */
+    private static class DirectorySnapshot {
+        private final long lastModified;
+        private final long listedAt;
+        private final List<Path> subdirectories;
+        
+        DirectorySnapshot(long lastModified, long listedAt, List<Path> subdirectories) {
+            this.lastModified = lastModified;
+            this.listedAt = listedAt;
+            this.subdirectories = subdirectories;
+        }
+        
+        boolean isUnchanged(long currentLastModified) {
+            return currentLastModified == lastModified && listedAt - lastModified > MTIME_GRANULARITY_MILLIS;
+        }
+    }
+    
+    /**
+     * 遍历统计
+     */
+    public static class WalkStats {
+        private int directories;
+        private int skippedDirectories;
+        private int files;
+        private long elapsedMillis;
+        
+        private void add(WalkStats other) {
+            directories += other.directories;
+            skippedDirectories += other.skippedDirectories;
+            files += other.files;
+        }
+        
+        /**
+         * 检查过的目录数
+         */
+        public int getDirectories() {
+            return directories;
+        }
+        
+        /**
+         * 修改时间未变化、未重新列举的目录数
+         */
+        public int getSkippedDirectories() {
+            return skippedDirectories;
+        }
+        
+        /**
+         * 列举到的文件数
+         */
+        public int getFiles() {
+            return files;
+        }
+        
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
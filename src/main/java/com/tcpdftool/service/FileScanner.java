@@ -2,20 +2,25 @@ package com.tcpdftool.service;
 
 import com.tcpdftool.config.AppConfig;
 import com.tcpdftool.model.PDFFileInfo;
+import com.tcpdftool.service.watch.DirectoryWatchBackend;
+import com.tcpdftool.service.watch.DirectoryWatchListener;
+import com.tcpdftool.service.watch.WatchBackendType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 
 /**
@@ -26,14 +31,28 @@ public class FileScanner {
     
     private static final Logger logger = LoggerFactory.getLogger(FileScanner.class);
     
+    /**
+     * 流式发现时每批最多的文件数
+     */
+    private static final int DISCOVERY_BATCH_SIZE = 20;
+    
+    /**
+     * 流式发现时未满一批的文件最长等待时间
+     */
+    private static final long DISCOVERY_FLUSH_MILLIS = 200;
+    
     private final AppConfig config;
     private final ScheduledExecutorService scheduler;
     private final ConcurrentHashMap<String, PDFFileInfo> knownFiles;
+    private final DirectoryWalker directoryWalker = new DirectoryWalker();
     private Consumer<PDFFileInfo> onNewFileFound;
+    private Consumer<List<PDFFileInfo>> onNewFilesScanned;
     private Consumer<List<PDFFileInfo>> onScanCompleted;
-    private boolean isScanning;
-    private WatchService watchService;
-    private Thread watchThread;
+    private ScanDiscoveryListener discoveryListener;
+    private BooleanSupplier backpressureSignal;
+    private volatile boolean isScanning;
+    private volatile DirectoryWatchBackend watchBackend;
+    private volatile long lastFullScanTime;
     
     public FileScanner(AppConfig config) {
         this.config = config;
@@ -49,6 +68,14 @@ public class FileScanner {
         this.onNewFileFound = callback;
     }
     
+    /**
+     * 设置定时扫描（含兜底扫描、事件丢失后的补充扫描）发现新文件的回调，每轮扫描回调一次全部新文件；
+     * 未设置时逐个回调新文件发现回调
+     */
+    public void setOnNewFilesScanned(Consumer<List<PDFFileInfo>> callback) {
+        this.onNewFilesScanned = callback;
+    }
+    
     /**
      * 设置扫描完成回调
      */
@@ -56,8 +83,25 @@ public class FileScanner {
         this.onScanCompleted = callback;
     }
     
+    /**
+     * 设置流式发现监听，初始扫描过程中分批回调已发现的文件，不必等待整个目录树遍历完成；
+     * 同时设置了扫描完成回调时，遍历结束后仍以完整列表回调一次
+     */
+    public void setDiscoveryListener(ScanDiscoveryListener listener) {
+        this.discoveryListener = listener;
+    }
+    
+    /**
+     * 设置下游繁忙信号（如检测队列已满），繁忙时跳过本轮定时扫描，
+     * 未提交的新文件在之后的扫描中仍会被发现
+     */
+    public void setBackpressureSignal(BooleanSupplier backpressureSignal) {
+        this.backpressureSignal = backpressureSignal;
+    }
+    
     /**
      * 开始扫描
+     * 初始扫描和文件监控注册在调用线程中同步执行，界面线程应通过后台线程调用
      */
     public void startScanning() {
         if (isScanning) {
@@ -65,35 +109,72 @@ public class FileScanner {
             return;
         }
         
-        String monitorDir = config.getMonitorDirectory();
-        if (monitorDir == null || monitorDir.trim().isEmpty()) {
-            logger.error("监控目录未配置");
-            return;
-        }
-        
-        File dir = new File(monitorDir);
-        if (!dir.exists() || !dir.isDirectory()) {
-            logger.error("监控目录不存在或不是目录: {}", monitorDir);
+        if (!isMonitorDirectoryValid()) {
             return;
         }
         
         isScanning = true;
-        logger.info("开始扫描目录: {}", monitorDir);
+        logger.info("开始扫描目录: {}", config.getMonitorDirectory());
         
         // 初始扫描
         performInitialScan();
         
-        // 启动定时扫描
-        startScheduledScanning();
+        // 启动定时扫描，初始扫描期间已停止时不再启动
+        synchronized (this) {
+            if (!isScanning) {
+                return;
+            }
+            startScheduledScanning();
+        }
         
-        // 启动文件监控
+        // 启动文件监控，注册期间被停止时释放刚注册的监控
         startFileWatching();
+        if (!isScanning) {
+            stopFileWatching();
+        }
+    }
+    
+    /**
+     * 只执行一次完整扫描（结果通过扫描完成回调和流式发现监听返回），不启动文件监控和定时扫描
+     * 在调用线程中同步执行，扫描结束后扫描器不可再使用
+     */
+    public void scanOnce() {
+        if (isScanning) {
+            logger.warn("文件扫描已在运行中");
+            return;
+        }
+        
+        try {
+            if (isMonitorDirectoryValid()) {
+                performInitialScan();
+            }
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+    
+    /**
+     * 检查监控目录是否已配置且存在
+     */
+    private boolean isMonitorDirectoryValid() {
+        String monitorDir = config.getMonitorDirectory();
+        if (monitorDir == null || monitorDir.trim().isEmpty()) {
+            logger.error("监控目录未配置");
+            return false;
+        }
+        
+        File dir = new File(monitorDir);
+        if (!dir.exists() || !dir.isDirectory()) {
+            logger.error("监控目录不存在或不是目录: {}", monitorDir);
+            return false;
+        }
+        return true;
     }
     
     /**
      * 停止扫描
      */
-    public void stopScanning() {
+    public synchronized void stopScanning() {
         if (!isScanning) {
             return;
         }
@@ -114,6 +195,7 @@ public class FileScanner {
      * 执行初始扫描
      */
     private void performInitialScan() {
+        lastFullScanTime = System.currentTimeMillis();
         try {
             logger.info("开始执行初始扫描，监控目录: {}", config.getMonitorDirectory());
             List<PDFFileInfo> foundFiles = scanDirectory();
@@ -122,7 +204,7 @@ public class FileScanner {
             if (onScanCompleted != null) {
                 logger.info("调用扫描完成回调");
                 onScanCompleted.accept(foundFiles);
-            } else {
+            } else if (discoveryListener == null) {
                 logger.warn("扫描完成回调为null");
             }
         } catch (Exception e) {
@@ -142,47 +224,78 @@ public class FileScanner {
                 return;
             }
             
-            try {
-                logger.info("执行定时扫描 - 监控目录: {}", config.getMonitorDirectory());
-                List<PDFFileInfo> newFiles = scanForNewFiles();
+            if (backpressureSignal != null && backpressureSignal.getAsBoolean()) {
+                logger.info("检测队列已满，跳过本轮定时扫描");
+                return;
+            }
+            
+            long safetyIntervalMillis = config.getSafetyScanInterval() * 60 * 1000L;
+            if (isSafetyScanOnly() && System.currentTimeMillis() - lastFullScanTime < safetyIntervalMillis) {
+                logger.debug("实时监控运行中，跳过本轮定时扫描");
+                return;
+            }
+            
+            logger.info("执行定时扫描 - 监控目录: {}", config.getMonitorDirectory());
+            scanAndNotifyNewFiles();
+        }, scanInterval, scanInterval, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * 扫描新文件，整批回调（未设置批量回调时逐个回调）
+     */
+    private void scanAndNotifyNewFiles() {
+        lastFullScanTime = System.currentTimeMillis();
+        try {
+            List<PDFFileInfo> newFiles = scanForNewFiles();
+            
+            if (!newFiles.isEmpty()) {
+                logger.info("扫描发现 {} 个新文件", newFiles.size());
                 
-                if (!newFiles.isEmpty()) {
-                    logger.info("定时扫描发现 {} 个新文件", newFiles.size());
-                    
-                    for (PDFFileInfo fileInfo : newFiles) {
-                        if (onNewFileFound != null) {
-                            onNewFileFound.accept(fileInfo);
-                        }
+                if (onNewFilesScanned != null) {
+                    onNewFilesScanned.accept(new ArrayList<>(newFiles));
+                    return;
+                }
+                for (PDFFileInfo fileInfo : newFiles) {
+                    if (onNewFileFound != null) {
+                        onNewFileFound.accept(fileInfo);
                     }
-                } else {
-                    logger.info("定时扫描完成 - 未发现新文件，已知文件数: {}", knownFiles.size());
                 }
-            } catch (Exception e) {
-                logger.error("定时扫描失败", e);
+            } else {
+                logger.info("扫描完成 - 未发现新文件，已知文件数: {}", knownFiles.size());
             }
-        }, scanInterval, scanInterval, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            logger.error("扫描新文件失败", e);
+        }
     }
     
     /**
      * 启动文件监控
      */
     private void startFileWatching() {
+        WatchBackendType backendType = WatchBackendType.parse(config.getWatchBackend());
+        watchBackend = backendType.createBackend(config);
         try {
-            watchService = FileSystems.getDefault().newWatchService();
-            Path monitorPath = Paths.get(config.getMonitorDirectory());
-            
-            // 注册监控事件
-            monitorPath.register(watchService, 
-                StandardWatchEventKinds.ENTRY_CREATE,
-                StandardWatchEventKinds.ENTRY_MODIFY);
-            
-            watchThread = new Thread(this::watchForFileChanges, "FileWatcher");
-            watchThread.setDaemon(true);
-            watchThread.start();
-            
-            logger.info("文件监控已启动");
+            watchBackend.start(Paths.get(config.getMonitorDirectory()), config.isIncludeSubdirectories(),
+                new DirectoryWatchListener() {
+                    @Override
+                    public void onPdfFileChanged(Path file) {
+                        handleFileEvent(file.toFile());
+                    }
+                    
+                    @Override
+                    public void onEventsLost() {
+                        if (isScanning && !scheduler.isShutdown()) {
+                            scheduler.execute(FileScanner.this::scanAndNotifyNewFiles);
+                        }
+                    }
+                });
+            if (isSafetyScanOnly()) {
+                logger.info("实时监控已覆盖全部目录，定时扫描降为每 {} 分钟一次的兜底扫描",
+                    config.getSafetyScanInterval());
+            }
         } catch (IOException e) {
-            logger.error("启动文件监控失败", e);
+            logger.error("启动文件监控失败（{}），依靠定时扫描发现新文件", backendType.getDisplayName(), e);
+            watchBackend.stop();
         }
     }
     
@@ -190,103 +303,73 @@ public class FileScanner {
      * 停止文件监控
      */
     private void stopFileWatching() {
-        try {
-            if (watchService != null) {
-                watchService.close();
-            }
-            if (watchThread != null) {
-                watchThread.interrupt();
-            }
-        } catch (IOException e) {
-            logger.error("停止文件监控失败", e);
+        if (watchBackend != null) {
+            watchBackend.stop();
         }
     }
     
     /**
-     * 监控文件变化
+     * 实时监控覆盖全部目录时，定时扫描只作为低频兜底
      */
-    private void watchForFileChanges() {
-        while (isScanning && !Thread.currentThread().isInterrupted()) {
-            try {
-                WatchKey key = watchService.take();
-                
-                for (WatchEvent<?> event : key.pollEvents()) {
-                    WatchEvent.Kind<?> kind = event.kind();
-                    
-                    if (kind == StandardWatchEventKinds.OVERFLOW) {
-                        continue;
-                    }
-                    
-                    @SuppressWarnings("unchecked")
-                    WatchEvent<Path> ev = (WatchEvent<Path>) event;
-                    Path fileName = ev.context();
-                    
-                    if (isPDFFile(fileName.toString())) {
-                        Path fullPath = Paths.get(config.getMonitorDirectory()).resolve(fileName);
-                        handleFileEvent(fullPath.toFile(), kind);
-                    }
-                }
-                
-                boolean valid = key.reset();
-                if (!valid) {
-                    break;
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            } catch (ClosedWatchServiceException e) {
-                // WatchService已关闭，正常退出监控循环
-                logger.info("文件监控服务已关闭，停止监控");
-                break;
-            } catch (Exception e) {
-                logger.error("文件监控异常", e);
-                // 发生其他异常时，短暂休眠后继续监控
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        }
+    private boolean isSafetyScanOnly() {
+        return config.getSafetyScanInterval() > 0 && watchBackend != null && watchBackend.isWatchingEntireTree();
+    }
+    
+    /**
+     * 当前实时监控的目录数，无法统计时返回-1
+     */
+    public int getWatchedDirectoryCount() {
+        return watchBackend == null ? 0 : watchBackend.getWatchedDirectoryCount();
+    }
+    
+    /**
+     * 实时监控是否仍在运行且覆盖全部目录
+     */
+    public boolean isWatchingEntireTree() {
+        return watchBackend != null && watchBackend.isWatchingEntireTree();
     }
     
     /**
      * 处理文件事件
      */
-    private void handleFileEvent(File file, WatchEvent.Kind<?> kind) {
-        if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
-            // 新文件创建，延迟处理以确保文件写入完成
-            scheduler.schedule(() -> {
-                if (file.exists() && isWithinTimeRange(file)) {
-                    PDFFileInfo fileInfo = createPDFFileInfo(file);
-                    knownFiles.put(file.getAbsolutePath(), fileInfo);
-                    
-                    if (onNewFileFound != null) {
-                        onNewFileFound.accept(fileInfo);
-                    }
-                    
-                    logger.info("检测到新PDF文件: {}", file.getName());
-                }
-            }, 2, TimeUnit.SECONDS);
+    private void handleFileEvent(File file) {
+        if (knownFiles.containsKey(file.getAbsolutePath()) || scheduler.isShutdown()) {
+            return;
         }
+        // 新文件创建，延迟处理以确保文件写入完成
+        scheduler.schedule(() -> {
+            if (file.exists() && isWithinTimeRange(file)) {
+                PDFFileInfo fileInfo = createPDFFileInfo(file);
+                // 定时扫描或其他事件已发现的文件不重复通知
+                if (knownFiles.putIfAbsent(file.getAbsolutePath(), fileInfo) != null) {
+                    return;
+                }
+                
+                if (onNewFileFound != null) {
+                    onNewFileFound.accept(fileInfo);
+                }
+                
+                logger.info("检测到新PDF文件: {}", file.getName());
+            }
+        }, 2, TimeUnit.SECONDS);
     }
     
     /**
      * 扫描目录
+     * 列举全部目录并重建目录记录，供之后的增量扫描使用
      */
     private List<PDFFileInfo> scanDirectory() {
-        List<PDFFileInfo> files = new ArrayList<>();
+        // 并行遍历时在多个线程中回调
+        List<PDFFileInfo> files = Collections.synchronizedList(new ArrayList<>());
         String monitorDir = config.getMonitorDirectory();
         
         logger.info("扫描目录: {}", monitorDir);
         
+        DiscoveryBatcher batcher = discoveryListener != null ? new DiscoveryBatcher(discoveryListener) : null;
+        int directories = 0;
         try {
-            Path startPath = Paths.get(monitorDir);
-            
-            Files.walkFileTree(startPath, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            DirectoryWalker.WalkStats stats = directoryWalker.walk(Paths.get(monitorDir),
+                config.isIncludeSubdirectories(), false, config.getScanParallelism(), file -> {
                     File f = file.toFile();
                     
                     logger.debug("检查文件: {}", f.getName());
@@ -296,22 +379,18 @@ public class FileScanner {
                         PDFFileInfo fileInfo = createPDFFileInfo(f);
                         files.add(fileInfo);
                         knownFiles.put(f.getAbsolutePath(), fileInfo);
+                        if (batcher != null) {
+                            batcher.add(fileInfo);
+                        }
                     }
-                    
-                    return FileVisitResult.CONTINUE;
-                }
-                
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-                    // 如果不扫描子目录，只处理根目录
-                    if (!config.isIncludeSubdirectories() && !dir.equals(startPath)) {
-                        return FileVisitResult.SKIP_SUBTREE;
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-            });
+                });
+            directories = stats.getDirectories();
         } catch (IOException e) {
             logger.error("扫描目录失败: {}", monitorDir, e);
+        } finally {
+            if (batcher != null) {
+                batcher.finish(directories);
+            }
         }
         
         logger.info("扫描完成，共找到 {} 个PDF文件", files.size());
@@ -320,40 +399,30 @@ public class FileScanner {
     
     /**
      * 扫描新文件
+     * 开启增量扫描时，修改时间未变化的目录不重新列举
      */
     private List<PDFFileInfo> scanForNewFiles() {
-        List<PDFFileInfo> newFiles = new ArrayList<>();
+        List<PDFFileInfo> newFiles = Collections.synchronizedList(new ArrayList<>());
         String monitorDir = config.getMonitorDirectory();
         
         try {
-            Path startPath = Paths.get(monitorDir);
-            
-            Files.walkFileTree(startPath, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            DirectoryWalker.WalkStats stats = directoryWalker.walk(Paths.get(monitorDir),
+                config.isIncludeSubdirectories(), config.isIncrementalScan(), config.getScanParallelism(), file -> {
                     File f = file.toFile();
                     String filePath = f.getAbsolutePath();
                     
                     if (isPDFFile(f.getName()) && 
-                        isWithinTimeRange(f) && 
-                        !knownFiles.containsKey(filePath)) {
+                        !knownFiles.containsKey(filePath) && 
+                        isWithinTimeRange(f)) {
                         
                         PDFFileInfo fileInfo = createPDFFileInfo(f);
-                        newFiles.add(fileInfo);
-                        knownFiles.put(filePath, fileInfo);
-                    }
-                    
-                    return FileVisitResult.CONTINUE;
-                }
-                
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-                    if (!config.isIncludeSubdirectories() && !dir.equals(startPath)) {
-                        return FileVisitResult.SKIP_SUBTREE;
+                        if (knownFiles.putIfAbsent(filePath, fileInfo) == null) {
+                            newFiles.add(fileInfo);
+                        }
                     }
-                    return FileVisitResult.CONTINUE;
-                }
-            });
+                });
+            logger.debug("目录遍历完成 - 目录数: {}, 未变化跳过: {}, 列举文件数: {}, 耗时: {}ms",
+                stats.getDirectories(), stats.getSkippedDirectories(), stats.getFiles(), stats.getElapsedMillis());
         } catch (IOException e) {
             logger.error("扫描新文件失败: {}", monitorDir, e);
         }
@@ -411,6 +480,8 @@ public class FileScanner {
      */
     public void clearKnownFiles() {
         knownFiles.clear();
+        // 未变化的目录不会重新列举，需同时清除目录记录才能再次发现其中的文件
+        directoryWalker.reset();
     }
     
     /**
@@ -419,4 +490,67 @@ public class FileScanner {
     public boolean isScanning() {
         return isScanning;
     }
-}
\ No newline at end of file
+    
+    /**
+     * 流式发现的分批缓冲
+     * 攒满一批或距上次回调超过等待时间即回调，遍历停留在无PDF的目录时由定时任务刷新
+     */
+    private class DiscoveryBatcher {
+        private final ScanDiscoveryListener listener;
+        private final long startTime = System.currentTimeMillis();
+        private final ScheduledFuture<?> flushTask;
+        private List<PDFFileInfo> pending = new ArrayList<>();
+        private long lastFlushTime = startTime;
+        private int totalFiles;
+        private int batchCount;
+        
+        DiscoveryBatcher(ScanDiscoveryListener listener) {
+            this.listener = listener;
+            this.flushTask = scheduler.scheduleWithFixedDelay(this::flushIfDue,
+                DISCOVERY_FLUSH_MILLIS, DISCOVERY_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        
+        synchronized void add(PDFFileInfo fileInfo) {
+            pending.add(fileInfo);
+            totalFiles++;
+            if (pending.size() >= DISCOVERY_BATCH_SIZE) {
+                flush();
+            } else {
+                flushIfDue();
+            }
+        }
+        
+        synchronized void flushIfDue() {
+            if (!pending.isEmpty() && System.currentTimeMillis() - lastFlushTime >= DISCOVERY_FLUSH_MILLIS) {
+                flush();
+            }
+        }
+        
+        synchronized void finish(int directories) {
+            flushTask.cancel(false);
+            if (!pending.isEmpty()) {
+                flush();
+            }
+            ScanSummary summary = new ScanSummary(totalFiles, batchCount, directories,
+                System.currentTimeMillis() - startTime);
+            logger.info("流式扫描结束 - {}", summary);
+            try {
+                listener.onScanFinished(summary);
+            } catch (RuntimeException e) {
+                logger.warn("扫描结束回调异常", e);
+            }
+        }
+        
+        private void flush() {
+            List<PDFFileInfo> batch = pending;
+            pending = new ArrayList<>();
+            lastFlushTime = System.currentTimeMillis();
+            batchCount++;
+            try {
+                listener.onFilesDiscovered(batch);
+            } catch (RuntimeException e) {
+                logger.warn("文件发现回调异常", e);
+            }
+        }
+    }
+}
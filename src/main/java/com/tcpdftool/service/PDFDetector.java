@@ -1,39 +1,136 @@
 package com.tcpdftool.service;
 
 import com.tcpdftool.config.AppConfig;
+import com.tcpdftool.config.ConfigManager;
 import com.tcpdftool.model.DetectionResult;
 import com.tcpdftool.model.PDFFileInfo;
 import com.tcpdftool.model.ReconversionStatus;
+import com.tcpdftool.service.stage.CombinePolicy;
+import com.tcpdftool.service.stage.DetectionContext;
+import com.tcpdftool.service.stage.DetectionDeadline;
+import com.tcpdftool.service.stage.DetectionPipeline;
+import com.tcpdftool.service.stage.DetectionStage;
+import com.tcpdftool.service.stage.DetectionTimeoutException;
+import com.tcpdftool.service.stage.FileSizeStage;
+import com.tcpdftool.service.stage.ImageContentStage;
+import com.tcpdftool.service.stage.StructurePrecheckStage;
+import com.tcpdftool.service.stage.TextLayerStage;
+import com.tcpdftool.service.worker.DetectionWorkerPool;
 import com.tcpdftool.util.TaskIdExtractor;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.FontMappers;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
  * PDF检测服务
- * 实现混合检测算法：文件大小 + 图像内容分析
+ * 实现混合检测算法：结构预检 + 文件大小 + 图像内容分析，
+ * 各检测阶段按开销排序组成检测流水线
  */
 public class PDFDetector {
     
     private static final Logger logger = LoggerFactory.getLogger(PDFDetector.class);
     
+    /**
+     * 预热时查找的字体
+     */
+    private static final String WARMUP_FONT_NAME = "Helvetica";
+    
+    /**
+     * 检测结果缓存文件名
+     */
+    private static final String DETECTION_CACHE_FILE = "detection-cache.json";
+    
+    /**
+     * 检测算法版本，算法调整导致结论变化时递增以使旧缓存失效
+     */
+    private static final int DETECTION_CACHE_VERSION = 3;
+    
+    /**
+     * 临时文件目录名前缀
+     */
+    private static final String SCRATCH_PREFIX = "detector-";
+    
+    /**
+     * 遗留临时目录的保留时间
+     */
+    private static final long STALE_SCRATCH_MILLIS = TimeUnit.HOURS.toMillis(24);
+    
+    /**
+     * 关闭时等待检测任务结束的最长时间
+     */
+    private static final long SCRATCH_CLEANUP_WAIT_SECONDS = 60;
+    
+    /**
+     * 实时文件判定为不完整后，等待多久复查文件是否仍在写入；
+     * 与缓存的最小文件年龄一致，复查确认后的结论可以缓存并触发重新转换
+     */
+    private static final long TRUNCATED_RECHECK_MILLIS = DetectionCache.TRUNCATED_MIN_AGE_MILLIS;
+    
+    /**
+     * 实时文件因仍在写入而重新检测的最多次数
+     */
+    private static final int MAX_TRUNCATED_RECHECKS = 5;
+    
     private final AppConfig config;
-    private final ExecutorService executorService;
+    private final DetectionQueue detectionQueue;
+    private final DetectionOrder detectionOrder;
+    private final ExecutorService reconversionExecutor;
+    private final ExecutorService batchFeeder;
+    private final ScheduledExecutorService truncationRecheck;
+    private final File scratchDirectory;
+    private final Thread scratchCleanupHook;
+    private final DetectionCache detectionCache;
+    private final DetectionPipeline detectionPipeline;
+    private final DetectionWorkerPool workerPool;
     private Consumer<PDFFileInfo> onDetectionCompleted;
     private ReconversionService reconversionService;
     
     public PDFDetector(AppConfig config) {
         this.config = config;
-        this.executorService = Executors.newFixedThreadPool(4);
+        this.detectionQueue = new DetectionQueue("PDFDetector",
+            config.getEffectiveDetectionThreads(), config.getDetectionQueueCapacity());
+        this.detectionOrder = DetectionOrder.parse(config.getDetectionOrder());
+        logger.info("检测顺序: 实时文件优先，同类文件{}", detectionOrder);
+        this.reconversionExecutor = Executors.newFixedThreadPool(2);
+        this.batchFeeder = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "PDFDetector-BatchFeeder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.truncationRecheck = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "PDFDetector-TruncationRecheck");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scratchDirectory = prepareScratchDirectory();
+        this.scratchCleanupHook = registerScratchCleanupHook(scratchDirectory);
+        this.detectionCache = createDetectionCache();
+        this.detectionPipeline = createDetectionPipeline();
+        this.workerPool = createWorkerPool();
     }
     
     /**
@@ -51,34 +148,266 @@ public class PDFDetector {
     }
     
     /**
-     * 异步检测PDF文件
+     * 异步检测PDF文件（按积压文件排队）
+     * 检测队列已满时阻塞直到有空位，不要在UI线程调用
+     * @throws java.util.concurrent.RejectedExecutionException 检测服务已关闭
      */
     public CompletableFuture<DetectionResult> detectAsync(PDFFileInfo fileInfo) {
-        return CompletableFuture.supplyAsync(() -> {
-            DetectionResult result = detectPDF(fileInfo);
+        return detectAsync(fileInfo, DetectionPriority.BACKLOG);
+    }
+    
+    /**
+     * 按指定优先级异步检测PDF文件
+     * 实时文件排在所有积压文件之前且不会阻塞；积压文件在队列已满时阻塞
+     * @throws java.util.concurrent.RejectedExecutionException 检测服务已关闭
+     */
+    public CompletableFuture<DetectionResult> detectAsync(PDFFileInfo fileInfo, DetectionPriority priority) {
+        CompletableFuture<DetectionResult> future = new CompletableFuture<>();
+        detectionQueue.submit(() -> runDetection(fileInfo, future, priority, 0), priority,
+            detectionOrder.sortKey(fileInfo));
+        return future;
+    }
+    
+    /**
+     * 批量检测（按积压文件排队）
+     */
+    public CompletableFuture<BatchResult> detectAll(Collection<PDFFileInfo> files) {
+        return detectAll(files, DetectionPriority.BACKLOG, null);
+    }
+    
+    /**
+     * 批量检测
+     * 积压文件在后台线程依次提交（检测队列已满时在该线程等待），调用方不会阻塞；
+     * 以每个检测任务本身的完成计数，每个文件只通知一次进度，全部完成后汇总为批量结果
+     * @param listener 单个文件完成时的进度监听，可为null
+     */
+    public CompletableFuture<BatchResult> detectAll(Collection<PDFFileInfo> files, DetectionPriority priority,
+                                                    BatchProgressListener listener) {
+        List<PDFFileInfo> batch = new ArrayList<>(files);
+        CompletableFuture<BatchResult> batchFuture = new CompletableFuture<>();
+        long start = System.nanoTime();
+        if (batch.isEmpty()) {
+            batchFuture.complete(new BatchResult(batch, 0));
+            return batchFuture;
+        }
+        
+        AtomicInteger completed = new AtomicInteger();
+        Runnable submitAll = () -> {
+            for (PDFFileInfo fileInfo : batch) {
+                CompletableFuture<DetectionResult> future;
+                try {
+                    future = detectAsync(fileInfo, priority);
+                } catch (RejectedExecutionException e) {
+                    fileInfo.setErrorMessage("检测服务已关闭");
+                    fileInfo.setDetectionResult(DetectionResult.DETECTION_FAILED);
+                    future = CompletableFuture.completedFuture(DetectionResult.DETECTION_FAILED);
+                }
+                future.whenComplete((result, error) -> {
+                    if (error != null) {
+                        fileInfo.setErrorMessage("检测失败: " + error.getMessage());
+                        fileInfo.setDetectionResult(DetectionResult.DETECTION_FAILED);
+                    }
+                    int done = completed.incrementAndGet();
+                    if (listener != null) {
+                        try {
+                            listener.onFileCompleted(fileInfo, done, batch.size());
+                        } catch (RuntimeException e) {
+                            logger.warn("批量检测进度回调异常: {}", fileInfo.getFileName(), e);
+                        }
+                    }
+                    if (done == batch.size()) {
+                        BatchResult batchResult = new BatchResult(batch, (System.nanoTime() - start) / 1_000_000);
+                        logger.info("批量检测完成 - {}", batchResult);
+                        batchFuture.complete(batchResult);
+                    }
+                });
+            }
+        };
+        
+        // 实时文件提交不会阻塞，直接提交以免排在积压文件的提交之后
+        if (priority == DetectionPriority.LIVE) {
+            submitAll.run();
+        } else {
+            try {
+                batchFeeder.execute(submitAll);
+            } catch (RejectedExecutionException e) {
+                submitAll.run();
+            }
+        }
+        return batchFuture;
+    }
+    
+    /**
+     * 尝试异步检测PDF文件，检测队列在超时时间内仍然已满则放弃
+     * @return 检测结果，未能提交时返回null
+     */
+    public CompletableFuture<DetectionResult> tryDetectAsync(PDFFileInfo fileInfo, DetectionPriority priority,
+                                                             long timeout, TimeUnit unit) {
+        CompletableFuture<DetectionResult> future = new CompletableFuture<>();
+        if (!detectionQueue.trySubmit(() -> runDetection(fileInfo, future, priority, 0), priority,
+                detectionOrder.sortKey(fileInfo), timeout, unit)) {
+            logger.debug("检测队列已满，暂不提交: {} ({})", fileInfo.getFileName(), detectionQueue);
+            return null;
+        }
+        return future;
+    }
+    
+    /**
+     * 获取检测队列（排队深度、等待时间、拒绝次数等统计）
+     */
+    public DetectionQueue getDetectionQueue() {
+        return detectionQueue;
+    }
+    
+    /**
+     * 检测队列是否已满，生产方可据此暂缓提交
+     */
+    public boolean isQueueSaturated() {
+        return detectionQueue.isSaturated();
+    }
+    
+    /**
+     * 在检测线程中执行检测并完成结果
+     * @param rechecks 实时文件因仍在写入已重新检测的次数
+     */
+    private void runDetection(PDFFileInfo fileInfo, CompletableFuture<DetectionResult> future,
+                              DetectionPriority priority, int rechecks) {
+        try {
+            File file = new File(fileInfo.getFilePath());
+            long sizeBefore = file.length();
+            long modifiedBefore = file.lastModified();
+            DetectionResult result = detectWithCache(fileInfo);
             fileInfo.setDetectionResult(result);
             
-            // 提取并设置TASKID
-            String taskId = TaskIdExtractor.extractAndValidateTaskId(fileInfo.getFilePath());
-            fileInfo.setTaskId(taskId);
-            
-            // 处理自动重新转换逻辑
-            handleAutoReconversion(fileInfo, result);
-            
-            if (onDetectionCompleted != null) {
-                onDetectionCompleted.accept(fileInfo);
+            // 文件监控事件后的固定等待不能保证写入已结束，实时文件判定不完整时稍后复查，仍在变化则重新检测
+            if (result == DetectionResult.TRUNCATED && priority == DetectionPriority.LIVE
+                    && rechecks < MAX_TRUNCATED_RECHECKS) {
+                try {
+                    truncationRecheck.schedule(() -> recheckTruncated(fileInfo, future, rechecks,
+                        sizeBefore, modifiedBefore), TRUNCATED_RECHECK_MILLIS, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    logger.debug("检测服务已关闭，不再复查不完整文件: {}", fileInfo.getFileName());
+                }
             }
             
-            return result;
-        }, executorService);
+            completeDetection(fileInfo, result, future);
+        } catch (RuntimeException e) {
+            logger.error("检测任务异常: {}", fileInfo.getFileName(), e);
+            future.completeExceptionally(e);
+        }
+    }
+    
+    /**
+     * 复查判定为不完整的实时文件：大小或修改时间在检测后仍有变化说明还在写入，重新排队检测；
+     * 保持不变则确认不完整
+     */
+    private void recheckTruncated(PDFFileInfo fileInfo, CompletableFuture<DetectionResult> future, int rechecks,
+                                  long sizeBefore, long modifiedBefore) {
+        try {
+            File file = new File(fileInfo.getFilePath());
+            if (file.exists() && (file.length() != sizeBefore || file.lastModified() != modifiedBefore)) {
+                logger.info("文件仍在写入，重新检测: {} ({} -> {} 字节)",
+                    fileInfo.getFileName(), sizeBefore, file.length());
+                fileInfo.setFileSize(file.length());
+                fileInfo.setDetectionResult(DetectionResult.PENDING);
+                try {
+                    detectionQueue.submit(() -> runDetection(fileInfo, future, DetectionPriority.LIVE, rechecks + 1),
+                        DetectionPriority.LIVE, detectionOrder.sortKey(fileInfo));
+                    return;
+                } catch (RejectedExecutionException e) {
+                    logger.debug("检测服务已关闭，不再重新检测: {}", fileInfo.getFileName());
+                    fileInfo.setDetectionResult(DetectionResult.TRUNCATED);
+                }
+            }
+            completeDetection(fileInfo, DetectionResult.TRUNCATED, future);
+        } catch (RuntimeException e) {
+            logger.error("检测任务异常: {}", fileInfo.getFileName(), e);
+            future.completeExceptionally(e);
+        }
+    }
+    
+    /**
+     * 结论确定后提取TASKID、处理自动重新转换并通知
+     */
+    private void completeDetection(PDFFileInfo fileInfo, DetectionResult result,
+                                   CompletableFuture<DetectionResult> future) {
+        // 提取并设置TASKID
+        String taskId = TaskIdExtractor.extractAndValidateTaskId(fileInfo.getFilePath());
+        fileInfo.setTaskId(taskId);
+        
+        // 处理自动重新转换逻辑
+        handleAutoReconversion(fileInfo, result);
+        
+        if (onDetectionCompleted != null) {
+            onDetectionCompleted.accept(fileInfo);
+        }
+        
+        future.complete(result);
+    }
+    
+    /**
+     * 清空检测结果缓存，之后的检测全部重新执行
+     */
+    public void clearDetectionCache() {
+        if (detectionCache != null) {
+            detectionCache.clear();
+            logger.info("检测结果缓存已清空");
+        }
+    }
+    
+    /**
+     * 优先使用缓存结论，未命中时检测并写入缓存
+     */
+    private DetectionResult detectWithCache(PDFFileInfo fileInfo) {
+        if (detectionCache == null) {
+            return detectIsolated(fileInfo);
+        }
+        
+        File file = new File(fileInfo.getFilePath());
+        DetectionCache.Entry cached = file.exists() ? detectionCache.lookup(file) : null;
+        if (cached != null) {
+            logger.debug("命中检测结果缓存: {} -> {}", fileInfo.getFileName(), cached.getResult());
+            fileInfo.clearStageTimings();
+            fileInfo.clearRegionAnalysis();
+            fileInfo.setDetectionMethod(cached.getMethod());
+            fileInfo.setErrorMessage(cached.getErrorMessage());
+            return cached.getResult();
+        }
+        
+        DetectionResult result = detectIsolated(fileInfo);
+        fileInfo.setDetectionResult(result);
+        detectionCache.store(file, fileInfo);
+        return result;
+    }
+    
+    /**
+     * 启用进程隔离时交给检测子进程，否则在本进程内检测
+     */
+    private DetectionResult detectIsolated(PDFFileInfo fileInfo) {
+        if (workerPool != null) {
+            return workerPool.detect(fileInfo);
+        }
+        return detectPDF(fileInfo);
     }
     
     /**
      * 同步检测PDF文件
      */
     public DetectionResult detectPDF(PDFFileInfo fileInfo) {
+        return detectPDF(fileInfo, DetectionDeadline.after(config.getDetectionTimeoutSeconds() * 1000L));
+    }
+    
+    /**
+     * 在指定时限内同步检测PDF文件，超时返回 TIMEOUT
+     */
+    DetectionResult detectPDF(PDFFileInfo fileInfo, DetectionDeadline deadline) {
         try {
             logger.debug("开始检测PDF文件: {}", fileInfo.getFileName());
+            fileInfo.clearStageTimings();
+            fileInfo.clearRegionAnalysis();
+            // 各阶段只在给出结论时标记检测方式，清除上次检测留下的标记
+            fileInfo.setDetectionMethod(null);
             
             File file = new File(fileInfo.getFilePath());
             if (!file.exists()) {
@@ -87,29 +416,40 @@ public class PDFDetector {
                 return DetectionResult.DETECTION_FAILED;
             }
             
-            // 第一步：文件大小检测
-            boolean isSuspiciousBySize = isSuspiciousBySize(fileInfo.getFileSize());
-            
-            // 第二步：图像内容检测
-            DetectionResult imageResult = detectByImageContent(file);
+            DetectionResult result;
+            try (DetectionContext context = new DetectionContext(file, fileInfo,
+                    f -> PDDocument.load(f, createMemoryUsageSetting()), deadline)) {
+                result = detectionPipeline.run(context);
+            }
             
-            // 根据两个检测结果确定最终结果
-            if (isSuspiciousBySize && imageResult == DetectionResult.SUSPICIOUS_EMPTY_PIXELS) {
+            if (result == DetectionResult.SUSPICIOUS_EMPTY_BOTH) {
                 logger.info("检测到疑似空PDF文件: {} (大小: {}) - 同时满足大小和内容密度条件", 
                     fileInfo.getFileName(), fileInfo.getFormattedFileSize());
-                return DetectionResult.SUSPICIOUS_EMPTY_BOTH;
-            } else if (isSuspiciousBySize) {
+                return result;
+            } else if (result == DetectionResult.SUSPICIOUS_EMPTY_SIZE) {
                 logger.info("检测到疑似空PDF文件: {} (大小: {}) - 文件大小过小", 
                     fileInfo.getFileName(), fileInfo.getFormattedFileSize());
-                return DetectionResult.SUSPICIOUS_EMPTY_SIZE;
-            } else if (imageResult == DetectionResult.SUSPICIOUS_EMPTY_PIXELS) {
+                return result;
+            } else if (result == DetectionResult.SUSPICIOUS_EMPTY_PIXELS) {
                 logger.info("检测到疑似空PDF文件: {} - 内容密度过低", fileInfo.getFileName());
-                return DetectionResult.SUSPICIOUS_EMPTY_PIXELS;
+                return result;
+            } else if (result != DetectionResult.NORMAL) {
+                return result;
             }
             
             logger.debug("PDF文件检测正常: {}", fileInfo.getFileName());
             return DetectionResult.NORMAL;
             
+        } catch (DetectionTimeoutException e) {
+            if (e.isCancelled()) {
+                logger.info("检测已取消: {}", fileInfo.getFileName());
+                fileInfo.setErrorMessage(e.getMessage());
+                return DetectionResult.DETECTION_FAILED;
+            }
+            logger.warn("检测超时，已放弃渲染: {} (大小: {}) - {}",
+                fileInfo.getFileName(), fileInfo.getFormattedFileSize(), e.getMessage());
+            fileInfo.setErrorMessage(e.getMessage());
+            return DetectionResult.TIMEOUT;
         } catch (Exception e) {
             logger.error("检测PDF文件失败: {}", fileInfo.getFileName(), e);
             fileInfo.setErrorMessage("检测失败: " + e.getMessage());
@@ -127,6 +467,14 @@ public class PDFDetector {
             return;
         }
         
+        // 刚修改过的文件可能仍在写入，不完整结论不触发重新转换
+        if (result == DetectionResult.TRUNCATED
+                && DetectionCache.isRecentlyModified(new File(fileInfo.getFilePath()))) {
+            logger.info("文件刚修改过，可能仍在写入，跳过自动重新转换: {}", fileInfo.getFileName());
+            fileInfo.setReconversionStatus(ReconversionStatus.SKIPPED);
+            return;
+        }
+        
         // 检查重新转换服务是否可用
         if (reconversionService == null) {
             logger.warn("重新转换服务未初始化，跳过自动重新转换: {}", fileInfo.getFileName());
@@ -190,186 +538,315 @@ public class PDFDetector {
                     onDetectionCompleted.accept(fileInfo);
                 }
             }
-        }, executorService);
+        }, reconversionExecutor);
     }
     
     /**
      * 判断是否应该触发自动重新转换
      */
     private boolean shouldTriggerAutoReconversion(DetectionResult result) {
-        // 当检测结果为空（疑似空文件）时触发重新转换
+        // 当检测结果为空（疑似空文件）或文件不完整时触发重新转换
         return result == DetectionResult.SUSPICIOUS_EMPTY_SIZE ||
                result == DetectionResult.SUSPICIOUS_EMPTY_PIXELS ||
-               result == DetectionResult.SUSPICIOUS_EMPTY_BOTH;
+               result == DetectionResult.SUSPICIOUS_EMPTY_BOTH ||
+               result == DetectionResult.TRUNCATED;
     }
     
     /**
-     * 根据文件大小判断是否疑似空文件
+     * 后台预热：建立PDFBox系统字体缓存，并多次检测合成页面使渲染路径完成类加载和JIT编译
+     * 启用进程隔离时由各检测子进程自行预热
+     * @return 预热结束（含失败）时完成
      */
-    private boolean isSuspiciousBySize(long fileSize) {
-        long sizeThresholdBytes = config.getFileSizeThreshold() * 1024L; // 转换为字节
-        return fileSize <= sizeThresholdBytes;
+    public CompletableFuture<Void> warmUp() {
+        int iterations = config.getWarmupIterations();
+        if (iterations <= 0 || workerPool != null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                runWarmUp(iterations);
+            } catch (Exception e) {
+                logger.warn("检测预热失败: {}", e.getMessage());
+            } finally {
+                future.complete(null);
+            }
+        }, "PDFDetector-WarmUp");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
     }
     
     /**
-     * 通过图像内容检测
+     * 执行预热
      */
-    private DetectionResult detectByImageContent(File pdfFile) {
-        PDDocument document = null;
+    private void runWarmUp(int iterations) throws IOException {
+        long start = System.nanoTime();
+        
+        // 首次查找字体时扫描系统字体目录并建立缓存，耗时最长
+        FontMappers.instance().getFontBoxFont(WARMUP_FONT_NAME, null);
+        long fontMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        File warmUpFile = File.createTempFile("warmup-", ".pdf", scratchDirectory);
         try {
-            document = PDDocument.load(pdfFile);
-            
-            if (document.getNumberOfPages() == 0) {
-                logger.debug("PDF文件无页面: {}", pdfFile.getName());
-                return DetectionResult.SUSPICIOUS_EMPTY_PIXELS;
+            writeWarmUpDocument(warmUpFile);
+            PDFFileInfo fileInfo = new PDFFileInfo(warmUpFile.getName(), warmUpFile.getAbsolutePath(),
+                warmUpFile.length(), new Date(warmUpFile.lastModified()));
+            // 合成页面低于文件大小阈值，走检测流水线会在大小阶段短路，这里直接执行图像内容检测
+            ImageContentStage warmUpStage = new ImageContentStage(config);
+            for (int i = 0; i < iterations; i++) {
+                fileInfo.clearStageTimings();
+                fileInfo.clearRegionAnalysis();
+                try (DetectionContext context = new DetectionContext(warmUpFile, fileInfo,
+                        f -> PDDocument.load(f, createMemoryUsageSetting()), DetectionDeadline.none())) {
+                    logger.debug("预热检测 {} - 结果: {}", i + 1, warmUpStage.evaluate(context));
+                }
             }
-            
-            // 检测第一页的图像内容
-            PDFRenderer renderer = new PDFRenderer(document);
-            BufferedImage image = renderer.renderImageWithDPI(0, 72); // 第一页，72 DPI
-            
-            return analyzeImageContent(image, pdfFile.getName());
-            
-        } catch (IOException e) {
-            logger.error("读取PDF文件失败: {}", pdfFile.getName(), e);
-            return DetectionResult.DETECTION_FAILED;
         } finally {
-            if (document != null) {
-                try {
-                    document.close();
-                } catch (IOException e) {
-                    logger.warn("关闭PDF文档失败: {}", pdfFile.getName(), e);
+            if (!warmUpFile.delete()) {
+                warmUpFile.deleteOnExit();
+            }
+        }
+        
+        logger.info("检测预热完成 - 字体缓存: {}ms, 合成页面检测 {} 次, 总耗时: {}ms",
+            fontMillis, iterations, (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /**
+     * 生成预热用的合成页面：检测区域内的文字和线条数量低于内容流预判阈值，确保走到渲染检测
+     */
+    private void writeWarmUpDocument(File file) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.A4);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                float width = page.getMediaBox().getWidth();
+                float height = page.getMediaBox().getHeight();
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 12);
+                content.newLineAtOffset(width * 0.3f, height * 0.6f);
+                content.setLeading(14);
+                for (int i = 0; i < 10; i++) {
+                    content.showText("TcPDFTool warm-up " + i);
+                    content.newLine();
+                }
+                content.endText();
+                for (int i = 0; i < 10; i++) {
+                    float y = height * 0.4f + i * 6;
+                    content.moveTo(width * 0.3f, y);
+                    content.lineTo(width * 0.7f, y);
+                    content.stroke();
                 }
             }
+            document.save(file);
         }
     }
     
     /**
-     * 分析图像内容
+     * 关闭检测服务
      */
-    private DetectionResult analyzeImageContent(BufferedImage image, String fileName) {
-        if (image == null) {
-            logger.warn("无法渲染PDF页面: {}", fileName);
-            return DetectionResult.DETECTION_FAILED;
+    public void shutdown() {
+        if (!detectionQueue.isShutdown()) {
+            detectionQueue.shutdown();
+        }
+        batchFeeder.shutdown();
+        truncationRecheck.shutdown();
+        reconversionExecutor.shutdown();
+        if (workerPool != null) {
+            workerPool.shutdown();
         }
         
-        int width = image.getWidth();
-        int height = image.getHeight();
-        
-        // 计算检测区域
-        DetectionArea area = calculateDetectionArea(width, height);
-        
-        // 统计内容像素（反向判断：统计非白色像素）
-        int contentPixelCount = 0;
-        int totalPixels = area.getPixelCount();
+        if (detectionCache != null) {
+            detectionCache.save();
+        }
         
-        for (int y = area.startY; y < area.endY; y++) {
-            for (int x = area.startX; x < area.endX; x++) {
-                if (isContentPixel(image.getRGB(x, y))) {
-                    contentPixelCount++;
-                }
+        for (DetectionStage stage : detectionPipeline.getStages()) {
+            if (stage instanceof TextLayerStage) {
+                TextLayerStage textLayerStage = (TextLayerStage) stage;
+                logger.info("文本层快速判定统计 - 评估: {}, 直接判定: {}, 判定率: {}%",
+                    textLayerStage.getEvaluatedCount(), textLayerStage.getDecidedCount(),
+                    String.format("%.1f", textLayerStage.getDecisionRate() * 100));
             }
         }
         
-        // 计算内容像素密度（内容像素占总像素的比例）
-        double contentPixelDensity = (double) contentPixelCount / totalPixels;
-        double threshold = config.getContentPixelDensityThreshold() / 100.0;
-        
-        logger.info("图像内容分析 - 文件: {}, 内容像素密度: {}%, 阈值: {}%", 
-            fileName, String.format("%.2f", contentPixelDensity * 100), String.format("%.2f", threshold * 100));
-        
-        // 反向判断：如果内容像素密度低于阈值，则认为是空白或内容稀少的文档
-        if (contentPixelDensity < threshold) {
-            logger.info("判断依据: 内容像素密度 {}% < 阈值 {}%，判定为疑似空文件", 
-                String.format("%.2f", contentPixelDensity * 100), String.format("%.2f", threshold * 100));
-            return DetectionResult.SUSPICIOUS_EMPTY_PIXELS;
-        } else {
-            logger.info("判断依据: 内容像素密度 {}% >= 阈值 {}%，判定为正常文件", 
-                String.format("%.2f", contentPixelDensity * 100), String.format("%.2f", threshold * 100));
-            return DetectionResult.NORMAL;
+        // 等待进行中的检测结束后再清理临时文件目录
+        if (scratchDirectory != null) {
+            Thread cleaner = new Thread(() -> {
+                try {
+                    detectionQueue.awaitTermination(SCRATCH_CLEANUP_WAIT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                deleteScratchDirectory(scratchDirectory);
+                try {
+                    Runtime.getRuntime().removeShutdownHook(scratchCleanupHook);
+                } catch (IllegalStateException ignored) {
+                    // JVM正在退出，由钩子负责清理
+                }
+            }, "PDFDetector-ScratchCleaner");
+            cleaner.setDaemon(true);
+            cleaner.start();
         }
     }
     
     /**
-     * 计算检测区域
+     * 创建并加载检测结果缓存
      */
-    private DetectionArea calculateDetectionArea(int width, int height) {
-        // 使用百分比配置计算ROI尺寸
-        double areaWidthPercent = config.getDetectionAreaWidthPercent();
-        double areaHeightPercent = config.getDetectionAreaHeightPercent();
-        
-        int areaWidth = (int) Math.round(width * (areaWidthPercent / 100.0));
-        int areaHeight = (int) Math.round(height * (areaHeightPercent / 100.0));
-        
-        // 约束到图像尺寸范围，至少1像素
-        areaWidth = Math.max(1, Math.min(areaWidth, width));
-        areaHeight = Math.max(1, Math.min(areaHeight, height));
-        
-        // 计算中心点：水平偏移相对图像中心，-100左，+100右，0居中
-        int offsetPercent = config.getHorizontalOffsetPercent();
-        int centerX = (int) Math.round(width / 2.0 + (offsetPercent / 100.0) * (width / 2.0));
-        int centerY = height / 2;
-        
-        // 以中心点为基准计算区域，超出边界时仅显示被遮挡部分（通过边界裁剪实现）
-        int startX = centerX - areaWidth / 2;
-        int startY = centerY - areaHeight / 2;
-        int endX = startX + areaWidth;
-        int endY = startY + areaHeight;
+    private DetectionCache createDetectionCache() {
+        if (!config.isEnableDetectionCache()) {
+            return null;
+        }
         
-        // 边界裁剪，保证采样坐标有效
-        int clippedStartX = Math.max(0, startX);
-        int clippedStartY = Math.max(0, startY);
-        int clippedEndX = Math.min(width, endX);
-        int clippedEndY = Math.min(height, endY);
+        File cacheFile = new File(ConfigManager.getConfigDirectory(), DETECTION_CACHE_FILE);
+        DetectionCache cache = new DetectionCache(cacheFile,
+            DETECTION_CACHE_VERSION + "|" + config.getDetectionSettingsKey(),
+            config.isDetectionCacheContentHash());
+        cache.load();
+        return cache;
+    }
+    
+    /**
+     * 创建检测子进程池，创建失败时回退到本进程内检测
+     */
+    private DetectionWorkerPool createWorkerPool() {
+        if (!config.isEnableProcessIsolation()) {
+            return null;
+        }
+        try {
+            return new DetectionWorkerPool(config);
+        } catch (IOException e) {
+            logger.warn("创建检测子进程池失败，改为本进程内检测 - {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 按配置组装检测流水线，未启用的检测不参与判定
+     */
+    private DetectionPipeline createDetectionPipeline() {
+        List<DetectionStage> stages = new ArrayList<>();
+        if (config.isEnableStructurePrecheck()) {
+            stages.add(new StructurePrecheckStage());
+        }
+        if (config.isEnableFileSizeDetection()) {
+            stages.add(new FileSizeStage(config));
+        }
+        if (config.isEnableImageContentDetection()) {
+            // 文本层判定是图像内容检测的快速通道，只在启用图像检测时参与
+            if (config.isEnableTextLayerFastPath()) {
+                stages.add(new TextLayerStage(config));
+            }
+            stages.add(new ImageContentStage(config));
+        }
         
-        logger.debug("检测区域计算 - 图像尺寸: {}x{}, 百分比: {}%x{}%, 偏移%: {}, 实际像素: {}x{}, 原始位置: ({},{})->({},{}), 裁剪后: ({},{})->({},{})",
-            width, height,
-            String.format("%.2f", areaWidthPercent), String.format("%.2f", areaHeightPercent), offsetPercent,
-            areaWidth, areaHeight,
-            startX, startY, endX, endY,
-            clippedStartX, clippedStartY, clippedEndX, clippedEndY);
+        CombinePolicy policy = CombinePolicy.parse(config.getDetectionCombinePolicy());
+        DetectionPipeline pipeline = new DetectionPipeline(stages, policy);
+        StringBuilder names = new StringBuilder();
+        for (DetectionStage stage : pipeline.getStages()) {
+            if (names.length() > 0) {
+                names.append(" -> ");
+            }
+            names.append(stage.getName());
+        }
+        logger.info("检测流水线: {} (组合策略: {})", names.length() > 0 ? names : "无", policy);
+        return pipeline;
+    }
+    
+    /**
+     * 创建PDF加载的内存使用策略
+     * 单个文档超出主内存上限的部分写入临时文件目录
+     */
+    private MemoryUsageSetting createMemoryUsageSetting() {
+        int maxMainMemoryMB = config.getMaxMainMemoryPerDocumentMB();
+        if (maxMainMemoryMB <= 0) {
+            return MemoryUsageSetting.setupMainMemoryOnly();
+        }
         
-        return new DetectionArea(clippedStartX, clippedStartY, clippedEndX, clippedEndY);
+        MemoryUsageSetting setting = MemoryUsageSetting.setupMixed(maxMainMemoryMB * 1024L * 1024L);
+        if (scratchDirectory != null) {
+            setting.setTempDir(scratchDirectory);
+        }
+        return setting;
     }
     
     /**
-     * 判断是否为内容像素（非白色/背景像素）
-     * 反向判断：检测有实际内容的像素
+     * 准备本检测器专用的临时文件目录，并清理以往遗留的目录
      */
-    private boolean isContentPixel(int rgb) {
-        int red = (rgb >> 16) & 0xFF;
-        int green = (rgb >> 8) & 0xFF;
-        int blue = rgb & 0xFF;
+    private File prepareScratchDirectory() {
+        if (config.getMaxMainMemoryPerDocumentMB() <= 0) {
+            return null;
+        }
         
-        // 内容像素：RGB值不全是接近白色的像素
-        // 使用更宽松的阈值来识别各种内容（文字、线条、图像等）
-        return !(red > 240 && green > 240 && blue > 240);
+        String root = config.getScratchDirectory();
+        if (root == null || root.trim().isEmpty()) {
+            root = ConfigManager.getConfigDirectory() + "/scratch";
+        }
+        
+        try {
+            Path rootPath = Paths.get(root.trim());
+            Files.createDirectories(rootPath);
+            purgeStaleScratchDirectories(rootPath);
+            
+            File directory = Files.createTempDirectory(rootPath, SCRATCH_PREFIX).toFile();
+            logger.info("PDF加载临时文件目录: {} (单文档主内存上限: {}MB)",
+                directory.getAbsolutePath(), config.getMaxMainMemoryPerDocumentMB());
+            return directory;
+        } catch (IOException e) {
+            logger.warn("创建临时文件目录失败，使用系统临时目录: {} - {}", root, e.getMessage());
+            return null;
+        }
     }
     
     /**
-     * 关闭检测服务
+     * 注册JVM退出钩子，确保直接退出应用时也会清理临时目录
      */
-    public void shutdown() {
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
+    private Thread registerScratchCleanupHook(File directory) {
+        if (directory == null) {
+            return null;
         }
+        Thread hook = new Thread(() -> deleteScratchDirectory(directory), "PDFDetector-ScratchHook");
+        Runtime.getRuntime().addShutdownHook(hook);
+        return hook;
     }
     
     /**
-     * 检测区域内部类
+     * 清理超过保留时间的遗留临时目录（异常退出时未能清理）
      */
-    private static class DetectionArea {
-        final int startX, startY, endX, endY;
-        
-        DetectionArea(int startX, int startY, int endX, int endY) {
-            this.startX = startX;
-            this.startY = startY;
-            this.endX = endX;
-            this.endY = endY;
+    private void purgeStaleScratchDirectories(Path rootPath) {
+        File[] directories = rootPath.toFile().listFiles(
+            f -> f.isDirectory() && f.getName().startsWith(SCRATCH_PREFIX));
+        if (directories == null) {
+            return;
         }
         
-        int getPixelCount() {
-            return (endX - startX) * (endY - startY);
+        long expireBefore = System.currentTimeMillis() - STALE_SCRATCH_MILLIS;
+        for (File directory : directories) {
+            if (directory.lastModified() < expireBefore) {
+                deleteScratchDirectory(directory);
+            }
+        }
+    }
+    
+    /**
+     * 删除临时目录及其中的文件
+     */
+    private void deleteScratchDirectory(File directory) {
+        if (!directory.exists()) {
+            return;
+        }
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    logger.debug("临时文件删除失败: {}", file.getAbsolutePath());
+                }
+            }
+        }
+        if (directory.delete()) {
+            logger.debug("已清理临时文件目录: {}", directory.getAbsolutePath());
+        } else {
+            logger.warn("临时文件目录清理失败: {}", directory.getAbsolutePath());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package com.tcpdftool.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * PDF结构预检
+ * 只读取文件头尾少量字节，校验 %PDF- 文件头、startxref 和 %%EOF 标记，
+ * 在完整加载之前识别写入不完整的文件
+ */
+public class PDFStructurePrecheck {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PDFStructurePrecheck.class);
+    
+    /**
+     * 文件头搜索范围，规范允许 %PDF- 出现在前1024字节内
+     */
+    private static final int HEADER_WINDOW = 1024;
+    
+    /**
+     * 文件尾搜索范围，容忍 %%EOF 之后的少量填充字节
+     */
+    private static final int TAIL_WINDOW = 4096;
+    
+    private static final byte[] HEADER_MARKER = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STARTXREF_MARKER = "startxref".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EOF_MARKER = "%%EOF".getBytes(StandardCharsets.US_ASCII);
+    
+    /**
+     * 检查文件结构
+     * @return 结构不完整的原因；结构完整时返回null
+     */
+    public static String check(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return "文件为空";
+            }
+            
+            byte[] header = read(channel, 0, (int) Math.min(HEADER_WINDOW, size));
+            if (indexOf(header, HEADER_MARKER, 0) < 0) {
+                return "缺少%PDF-文件头";
+            }
+            
+            long tailStart = Math.max(0, size - TAIL_WINDOW);
+            byte[] tail = read(channel, tailStart, (int) (size - tailStart));
+            int startxref = lastIndexOf(tail, STARTXREF_MARKER);
+            if (startxref < 0) {
+                return "文件尾缺少startxref";
+            }
+            if (indexOf(tail, EOF_MARKER, startxref + STARTXREF_MARKER.length) < 0) {
+                return "文件尾缺少%%EOF";
+            }
+            
+            logger.debug("PDF结构预检通过: {}", file.getName());
+            return null;
+        }
+    }
+    
+    /**
+     * 按位置读取指定长度的字节
+     */
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+    
+    private static int indexOf(byte[] data, byte[] pattern, int from) {
+        outer:
+        for (int i = Math.max(0, from); i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+    
+    private static int lastIndexOf(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = data.length - pattern.length; i >= 0; i--) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,189 @@
+package com.tcpdftool.service;
+
+import com.tcpdftool.service.stage.DetectionDeadline;
+import org.apache.pdfbox.contentstream.PDFGraphicsStreamEngine;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.graphics.blend.BlendMode;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.util.Matrix;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 单图像页面探测
+ * 解析页面内容流，判断页面是否只绘制了一个图像XObject（如扫描图纸），
+ * 是则记录该图像及其绘制时的变换矩阵和裁剪区域，供直接读取图像统计密度
+ */
+public class PageImageProbe extends PDFGraphicsStreamEngine {
+
+    private final DetectionDeadline deadline;
+
+    private final Point2D.Float currentPoint = new Point2D.Float();
+    private PDImageXObject image;
+    private AffineTransform imageTransform;
+    private Area clipPath;
+
+    public PageImageProbe(PDPage page, DetectionDeadline deadline) {
+        super(page);
+        this.deadline = deadline;
+    }
+
+    /**
+     * 执行探测
+     * @return 页面是否只绘制了一个可直接读取的图像XObject
+     */
+    public boolean probe() throws IOException {
+        PDPage page = getPage();
+        try {
+            processPage(page);
+        } catch (RejectedException e) {
+            return false;
+        }
+        return image != null && !hasVisibleAnnotations(page);
+    }
+
+    /**
+     * 页面上唯一的图像
+     */
+    public PDImageXObject getImage() {
+        return image;
+    }
+
+    /**
+     * 图像单位正方形到页面用户空间的变换
+     */
+    public AffineTransform getImageTransform() {
+        return imageTransform;
+    }
+
+    /**
+     * 绘制图像时的裁剪区域（用户空间）
+     */
+    public Area getClipPath() {
+        return clipPath;
+    }
+
+    @Override
+    protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+        deadline.check();
+        String name = operator.getName();
+        // 任何文本显示都会叠加到图像上
+        if ("Tj".equals(name) || "TJ".equals(name) || "'".equals(name) || "\"".equals(name)) {
+            reject();
+        }
+        super.processOperator(operator, operands);
+    }
+
+    @Override
+    public void drawImage(PDImage pdImage) {
+        // 第二个图像、内联图像、模板蒙版和带透明蒙版的图像都需要合成，无法直接读取
+        if (image != null || !(pdImage instanceof PDImageXObject) || pdImage.isStencil()) {
+            reject();
+        }
+        PDImageXObject xObject = (PDImageXObject) pdImage;
+        try {
+            if (xObject.getSoftMask() != null || xObject.getMask() != null || xObject.getColorKeyMask() != null) {
+                reject();
+            }
+        } catch (IOException e) {
+            reject();
+        }
+        // 半透明或混合模式绘制时渲染结果与图像本身不同
+        if (getGraphicsState().getNonStrokeAlphaConstant() < 1.0
+                || getGraphicsState().getBlendMode() != BlendMode.NORMAL) {
+            reject();
+        }
+        Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
+        image = xObject;
+        imageTransform = ctm.createAffineTransform();
+        clipPath = new Area(getGraphicsState().getCurrentClippingPath());
+    }
+
+    @Override
+    public void appendRectangle(Point2D p0, Point2D p1, Point2D p2, Point2D p3) {
+        currentPoint.setLocation(p0);
+    }
+
+    @Override
+    public void clip(int windingRule) {
+    }
+
+    @Override
+    public void moveTo(float x, float y) {
+        currentPoint.setLocation(x, y);
+    }
+
+    @Override
+    public void lineTo(float x, float y) {
+        currentPoint.setLocation(x, y);
+    }
+
+    @Override
+    public void curveTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+        currentPoint.setLocation(x3, y3);
+    }
+
+    @Override
+    public Point2D getCurrentPoint() {
+        return currentPoint;
+    }
+
+    @Override
+    public void closePath() {
+    }
+
+    @Override
+    public void endPath() {
+    }
+
+    @Override
+    public void strokePath() {
+        reject();
+    }
+
+    @Override
+    public void fillPath(int windingRule) {
+        reject();
+    }
+
+    @Override
+    public void fillAndStrokePath(int windingRule) {
+        reject();
+    }
+
+    @Override
+    public void shadingFill(COSName shadingName) {
+        reject();
+    }
+
+    private void reject() {
+        throw new RejectedException();
+    }
+
+    private boolean hasVisibleAnnotations(PDPage page) throws IOException {
+        for (PDAnnotation annotation : page.getAnnotations()) {
+            if (!annotation.isHidden() && !annotation.isNoView() && annotation.getNormalAppearanceStream() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 页面不符合单图像条件时用于跳出内容流解析
+     */
+    private static class RejectedException extends RuntimeException {
+        RejectedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.tcpdftool.service;
+
+import com.tcpdftool.model.PDFFileInfo;
+
+import java.util.List;
+
+/**
+ * 流式文件发现监听
+ * 扫描过程中分批回调已发现的文件（在扫描线程或定时刷新线程中），全部目录遍历完成后回调一次汇总
+ */
+public interface ScanDiscoveryListener {
+    
+    /**
+     * @param files 自上次回调以来新发现的文件，按发现顺序
+     */
+    void onFilesDiscovered(List<PDFFileInfo> files);
+    
+    /**
+     * 扫描结束，之后不会再有本次扫描的文件回调
+     */
+    void onScanFinished(ScanSummary summary);
+}
@@ -0,0 +1,53 @@
+package com.tcpdftool.service;
+
+/**
+ * 一次扫描的汇总
+ */
+public class ScanSummary {
+    
+    private final int totalFiles;
+    private final int batchCount;
+    private final int directories;
+    private final long elapsedMillis;
+    
+    ScanSummary(int totalFiles, int batchCount, int directories, long elapsedMillis) {
+        this.totalFiles = totalFiles;
+        this.batchCount = batchCount;
+        this.directories = directories;
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    /**
+     * 发现的PDF文件总数
+     */
+    public int getTotalFiles() {
+        return totalFiles;
+    }
+    
+    /**
+     * 分批回调的次数
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+    
+    /**
+     * 遍历的目录数
+     */
+    public int getDirectories() {
+        return directories;
+    }
+    
+    /**
+     * 从开始遍历到结束的耗时
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return "共 " + totalFiles + " 个文件, " + directories + " 个目录, 分 " + batchCount + " 批, 耗时 "
+            + elapsedMillis + "ms";
+    }
+}
@@ -0,0 +1,135 @@
+package com.tcpdftool.service;
+
+import com.tcpdftool.service.stage.DetectionDeadline;
+import org.apache.pdfbox.contentstream.PDFStreamEngine;
+import org.apache.pdfbox.contentstream.operator.DrawObject;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.contentstream.operator.state.Concatenate;
+import org.apache.pdfbox.contentstream.operator.state.Restore;
+import org.apache.pdfbox.contentstream.operator.state.Save;
+import org.apache.pdfbox.contentstream.operator.state.SetGraphicsStateParameters;
+import org.apache.pdfbox.contentstream.operator.state.SetMatrix;
+import org.apache.pdfbox.contentstream.operator.text.BeginText;
+import org.apache.pdfbox.contentstream.operator.text.EndText;
+import org.apache.pdfbox.contentstream.operator.text.MoveText;
+import org.apache.pdfbox.contentstream.operator.text.MoveTextSetLeading;
+import org.apache.pdfbox.contentstream.operator.text.NextLine;
+import org.apache.pdfbox.contentstream.operator.text.SetCharSpacing;
+import org.apache.pdfbox.contentstream.operator.text.SetFontAndSize;
+import org.apache.pdfbox.contentstream.operator.text.SetTextHorizontalScaling;
+import org.apache.pdfbox.contentstream.operator.text.SetTextLeading;
+import org.apache.pdfbox.contentstream.operator.text.SetTextRenderingMode;
+import org.apache.pdfbox.contentstream.operator.text.SetTextRise;
+import org.apache.pdfbox.contentstream.operator.text.SetWordSpacing;
+import org.apache.pdfbox.contentstream.operator.text.ShowText;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextAdjusted;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextLine;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextLineAndSpace;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.Vector;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 文本层字形计数
+ * 只注册文本和图形状态相关的操作符，按字符编码逐个计数可见的非空白字形，
+ * 不计算文本位置、不拼接字符串、不加载字形轮廓，达到目标数量即中止解析
+ */
+public class TextLayerGlyphCounter extends PDFStreamEngine {
+
+    private final int targetGlyphs;
+    private final DetectionDeadline deadline;
+    private int glyphCount;
+
+    /**
+     * @param targetGlyphs 字形数达到该值即停止计数
+     * @param deadline 检测时限，每个操作符检查一次
+     */
+    public TextLayerGlyphCounter(int targetGlyphs, DetectionDeadline deadline) {
+        this.targetGlyphs = Math.max(1, targetGlyphs);
+        this.deadline = deadline;
+
+        addOperator(new BeginText());
+        addOperator(new EndText());
+        addOperator(new SetFontAndSize());
+        addOperator(new SetMatrix());
+        addOperator(new MoveText());
+        addOperator(new MoveTextSetLeading());
+        addOperator(new NextLine());
+        addOperator(new SetCharSpacing());
+        addOperator(new SetWordSpacing());
+        addOperator(new SetTextHorizontalScaling());
+        addOperator(new SetTextLeading());
+        addOperator(new SetTextRenderingMode());
+        addOperator(new SetTextRise());
+        addOperator(new ShowText());
+        addOperator(new ShowTextAdjusted());
+        addOperator(new ShowTextLine());
+        addOperator(new ShowTextLineAndSpace());
+        addOperator(new Save());
+        addOperator(new Restore());
+        addOperator(new Concatenate());
+        addOperator(new SetGraphicsStateParameters());
+        addOperator(new DrawObject());
+    }
+
+    /**
+     * 统计页面可见字形数，达到目标数量时提前返回
+     */
+    public int count(PDPage page) throws IOException {
+        glyphCount = 0;
+        try {
+            processPage(page);
+        } catch (DecidedException e) {
+            // 已达到目标数量
+        }
+        return glyphCount;
+    }
+
+    /**
+     * 是否因达到目标数量而提前结束
+     */
+    public boolean isTargetReached() {
+        return glyphCount >= targetGlyphs;
+    }
+
+    @Override
+    protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+        deadline.check();
+        super.processOperator(operator, operands);
+    }
+
+    @Override
+    protected void showGlyph(Matrix textRenderingMatrix, PDFont font, int code, Vector displacement)
+            throws IOException {
+        // 不可见文本（如扫描件上的OCR层）不代表页面有内容
+        if (getGraphicsState().getTextState().getRenderingMode() == RenderingMode.NEITHER) {
+            return;
+        }
+        // 只在判断空白字符时查询Unicode映射
+        String unicode = font.toUnicode(code);
+        if (unicode != null && unicode.trim().isEmpty()) {
+            return;
+        }
+        glyphCount++;
+        if (glyphCount >= targetGlyphs) {
+            throw new DecidedException();
+        }
+    }
+
+    /**
+     * 结论已确定时用于跳出内容流解析
+     */
+    private static class DecidedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        DecidedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.tcpdftool.service.stage;
+
+/**
+ * 检测阶段组合策略
+ */
+public enum CombinePolicy {
+    
+    /**
+     * 任一阶段判定疑似空即为疑似空
+     */
+    ANY,
+    
+    /**
+     * 所有参与判定的阶段均判定疑似空才为疑似空
+     */
+    ALL;
+    
+    /**
+     * 解析配置值，无法识别时使用ANY
+     */
+    public static CombinePolicy parse(String value) {
+        if (value != null && ALL.name().equalsIgnoreCase(value.trim())) {
+            return ALL;
+        }
+        return ANY;
+    }
+}
@@ -0,0 +1,36 @@
+package com.tcpdftool.service.stage;
+
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.PageDrawer;
+import org.apache.pdfbox.rendering.PageDrawerParameters;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 受检测时限约束的渲染器
+ * 每执行一个内容流操作符检查一次时限，超时后放弃渲染并释放检测线程
+ */
+public class DeadlineAwareRenderer extends PDFRenderer {
+    
+    private final DetectionDeadline deadline;
+    
+    public DeadlineAwareRenderer(PDDocument document, DetectionDeadline deadline) {
+        super(document);
+        this.deadline = deadline;
+    }
+    
+    @Override
+    protected PageDrawer createPageDrawer(PageDrawerParameters parameters) throws IOException {
+        return new PageDrawer(parameters) {
+            @Override
+            protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+                deadline.check();
+                super.processOperator(operator, operands);
+            }
+        };
+    }
+}
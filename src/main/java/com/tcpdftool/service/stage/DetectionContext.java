@@ -0,0 +1,86 @@
+package com.tcpdftool.service.stage;
+
+import com.tcpdftool.model.PDFFileInfo;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 单个文件的检测上下文
+ * 在各阶段间共享文件信息，并按需加载PDF文档（只加载一次，检测结束时关闭）
+ */
+public class DetectionContext implements Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DetectionContext.class);
+    
+    /**
+     * PDF文档加载方式
+     */
+    public interface DocumentLoader {
+        PDDocument load(File file) throws IOException;
+    }
+    
+    private final File file;
+    private final PDFFileInfo fileInfo;
+    private final DocumentLoader documentLoader;
+    private final DetectionDeadline deadline;
+    private PDDocument document;
+    private boolean contentConfirmed;
+    
+    public DetectionContext(File file, PDFFileInfo fileInfo, DocumentLoader documentLoader,
+                            DetectionDeadline deadline) {
+        this.file = file;
+        this.fileInfo = fileInfo;
+        this.documentLoader = documentLoader;
+        this.deadline = deadline;
+    }
+    
+    public File getFile() {
+        return file;
+    }
+    
+    public PDFFileInfo getFileInfo() {
+        return fileInfo;
+    }
+    
+    public DetectionDeadline getDeadline() {
+        return deadline;
+    }
+    
+    /**
+     * 是否已有前序阶段确认页面有内容（如文本层字形充足），后续内容检测可跳过渲染
+     */
+    public boolean isContentConfirmed() {
+        return contentConfirmed;
+    }
+    
+    public void setContentConfirmed(boolean contentConfirmed) {
+        this.contentConfirmed = contentConfirmed;
+    }
+    
+    /**
+     * 获取PDF文档，首次调用时加载
+     */
+    public PDDocument getDocument() throws IOException {
+        if (document == null) {
+            document = documentLoader.load(file);
+        }
+        return document;
+    }
+    
+    @Override
+    public void close() {
+        if (document != null) {
+            try {
+                document.close();
+            } catch (IOException e) {
+                logger.warn("关闭PDF文档失败: {}", file.getName(), e);
+            }
+            document = null;
+        }
+    }
+}
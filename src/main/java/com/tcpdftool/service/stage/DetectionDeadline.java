@@ -0,0 +1,64 @@
+package com.tcpdftool.service.stage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个文件的检测时限
+ * 由内容流解析和渲染在每个操作符处检查，超时或线程被中断时抛出 DetectionTimeoutException 中止检测
+ */
+public class DetectionDeadline {
+    
+    private static final DetectionDeadline NONE = new DetectionDeadline(0L, 0L);
+    
+    private final long deadlineNanos;
+    private final long budgetMillis;
+    
+    private DetectionDeadline(long deadlineNanos, long budgetMillis) {
+        this.deadlineNanos = deadlineNanos;
+        this.budgetMillis = budgetMillis;
+    }
+    
+    /**
+     * 从现在起指定毫秒后到期，<=0表示不限时
+     */
+    public static DetectionDeadline after(long budgetMillis) {
+        if (budgetMillis <= 0) {
+            return NONE;
+        }
+        return new DetectionDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis), budgetMillis);
+    }
+    
+    /**
+     * 不限时（仍响应线程中断）
+     */
+    public static DetectionDeadline none() {
+        return NONE;
+    }
+    
+    /**
+     * 是否已超时
+     */
+    public boolean isExpired() {
+        return budgetMillis > 0 && System.nanoTime() - deadlineNanos >= 0;
+    }
+    
+    /**
+     * 时限（毫秒），0表示不限时
+     */
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+    
+    /**
+     * 检查是否应中止检测
+     * @throws DetectionTimeoutException 已超时或线程已被中断
+     */
+    public void check() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new DetectionTimeoutException("检测已取消", true);
+        }
+        if (isExpired()) {
+            throw new DetectionTimeoutException("检测超时（超过 " + budgetMillis + "ms）", false);
+        }
+    }
+}
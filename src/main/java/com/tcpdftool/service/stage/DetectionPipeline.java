@@ -0,0 +1,101 @@
+package com.tcpdftool.service.stage;
+
+import com.tcpdftool.model.DetectionResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 检测流水线
+ * 阶段按预估开销升序执行，并按组合策略短路：
+ * ANY 策略下首个疑似空结论即结束，ALL 策略下首个正常结论即结束；
+ * 各阶段耗时记录到文件信息上
+ */
+public class DetectionPipeline {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DetectionPipeline.class);
+    
+    private final List<DetectionStage> stages;
+    private final CombinePolicy policy;
+    
+    public DetectionPipeline(List<DetectionStage> stages, CombinePolicy policy) {
+        List<DetectionStage> sorted = new ArrayList<>(stages);
+        // 稳定排序，开销相同时保持注册顺序
+        sorted.sort(Comparator.comparingInt(DetectionStage::getEstimatedCost));
+        this.stages = Collections.unmodifiableList(sorted);
+        this.policy = policy;
+    }
+    
+    public List<DetectionStage> getStages() {
+        return stages;
+    }
+    
+    public CombinePolicy getPolicy() {
+        return policy;
+    }
+    
+    /**
+     * 依次执行各阶段并组合结论
+     */
+    public DetectionResult run(DetectionContext context) throws IOException {
+        List<DetectionResult> suspiciousResults = new ArrayList<>();
+        boolean anyVote = false;
+        
+        for (DetectionStage stage : stages) {
+            context.getDeadline().check();
+            long start = System.nanoTime();
+            StageResult stageResult;
+            try {
+                stageResult = stage.evaluate(context);
+            } finally {
+                context.getFileInfo().addStageTiming(stage.getName(), System.nanoTime() - start);
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            logger.debug("检测阶段 [{}] - 文件: {}, 结果: {}, 耗时: {}ms",
+                stage.getName(), context.getFile().getName(), stageResult, elapsedMillis);
+            
+            switch (stageResult.getKind()) {
+                case FINAL:
+                    return stageResult.getResult();
+                case SUSPICIOUS:
+                    if (policy == CombinePolicy.ANY) {
+                        return stageResult.getResult();
+                    }
+                    anyVote = true;
+                    suspiciousResults.add(stageResult.getResult());
+                    break;
+                case NORMAL:
+                    if (policy == CombinePolicy.ALL) {
+                        return DetectionResult.NORMAL;
+                    }
+                    anyVote = true;
+                    break;
+                case CONTINUE:
+                default:
+                    break;
+            }
+        }
+        
+        if (!anyVote || suspiciousResults.isEmpty()) {
+            return DetectionResult.NORMAL;
+        }
+        return combine(suspiciousResults);
+    }
+    
+    /**
+     * 组合多个疑似空结论：同时包含大小和内容密度条件时为BOTH
+     */
+    private DetectionResult combine(List<DetectionResult> suspiciousResults) {
+        boolean bySize = suspiciousResults.contains(DetectionResult.SUSPICIOUS_EMPTY_SIZE);
+        boolean byPixels = suspiciousResults.contains(DetectionResult.SUSPICIOUS_EMPTY_PIXELS);
+        if (bySize && byPixels) {
+            return DetectionResult.SUSPICIOUS_EMPTY_BOTH;
+        }
+        return suspiciousResults.get(0);
+    }
+}
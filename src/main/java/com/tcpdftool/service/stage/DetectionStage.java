@@ -0,0 +1,27 @@
+package com.tcpdftool.service.stage;
+
+import java.io.IOException;
+
+/**
+ * 检测阶段接口
+ * 每个阶段声明预估开销，检测流水线按开销从低到高依次执行，
+ * 结论可确定时短路跳过后续阶段
+ */
+public interface DetectionStage {
+    
+    /**
+     * 阶段名称，用于日志和耗时统计
+     */
+    String getName();
+    
+    /**
+     * 预估开销（相对值，越小越先执行）
+     * 可给出最终结论（FINAL）的阶段应排在会投票的阶段之前，否则可能被组合策略短路
+     */
+    int getEstimatedCost();
+    
+    /**
+     * 执行检测
+     */
+    StageResult evaluate(DetectionContext context) throws IOException;
+}
@@ -0,0 +1,22 @@
+package com.tcpdftool.service.stage;
+
+/**
+ * 检测超时或被取消
+ * 使用非受检异常以便穿过PDFBox的内容流解析回调
+ */
+public class DetectionTimeoutException extends RuntimeException {
+    
+    private final boolean cancelled;
+    
+    public DetectionTimeoutException(String message, boolean cancelled) {
+        super(message, null, false, false);
+        this.cancelled = cancelled;
+    }
+    
+    /**
+     * 是否因线程中断而取消（否则为超时）
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
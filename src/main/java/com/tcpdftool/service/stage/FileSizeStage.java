@@ -0,0 +1,40 @@
+package com.tcpdftool.service.stage;
+
+import com.tcpdftool.config.AppConfig;
+import com.tcpdftool.model.DetectionMethod;
+import com.tcpdftool.model.DetectionResult;
+import com.tcpdftool.model.PDFFileInfo;
+
+/**
+ * 文件大小检测阶段
+ */
+public class FileSizeStage implements DetectionStage {
+    
+    private final AppConfig config;
+    
+    public FileSizeStage(AppConfig config) {
+        this.config = config;
+    }
+    
+    @Override
+    public String getName() {
+        return "文件大小";
+    }
+    
+    @Override
+    public int getEstimatedCost() {
+        return 1;
+    }
+    
+    @Override
+    public StageResult evaluate(DetectionContext context) {
+        PDFFileInfo fileInfo = context.getFileInfo();
+        
+        long sizeThresholdBytes = config.getFileSizeThreshold() * 1024L; // 转换为字节
+        if (fileInfo.getFileSize() <= sizeThresholdBytes) {
+            fileInfo.setDetectionMethod(DetectionMethod.FILE_SIZE);
+            return StageResult.suspicious(DetectionResult.SUSPICIOUS_EMPTY_SIZE);
+        }
+        return StageResult.normal();
+    }
+}
@@ -0,0 +1,1006 @@
+package com.tcpdftool.service.stage;
+
+import com.tcpdftool.config.AppConfig;
+import com.tcpdftool.config.DetectionRegion;
+import com.tcpdftool.model.DetectionMethod;
+import com.tcpdftool.model.DetectionResult;
+import com.tcpdftool.model.PDFFileInfo;
+import com.tcpdftool.service.ContentStreamTriage;
+import com.tcpdftool.service.PageImageProbe;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.RenderDestination;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 图像内容检测阶段
+ * 依次尝试内容流预判、单图像直读、低分辨率渲染、标准渲染，统计检测区域内的内容像素密度；
+ * 配置了附加检测区域或亮度直方图时，改为一次渲染全部区域的外接矩形并单次扫描统计
+ */
+public class ImageContentStage implements DetectionStage {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ImageContentStage.class);
+    
+    /**
+     * 接近白色的判定阈值，高于该值视为背景
+     * 灰度渲染时比较的是亮度（Java2D按 0.299R + 0.587G + 0.114B 转灰度），
+     * 彩色图像仍比较RGB各分量；浅色饱和色在两种方式下结论不同，见 buildGrayContentLut
+     */
+    private static final int WHITE_THRESHOLD = 240;
+    
+    /**
+     * 灰度值 -> 是否内容像素
+     */
+    private static final boolean[] GRAY_CONTENT_LUT = buildGrayContentLut();
+    
+    /**
+     * 检测渲染分辨率（未超出像素预算时）
+     */
+    private static final float RENDER_DPI = 72f;
+    
+    /**
+     * 像素预算下的最低渲染分辨率
+     */
+    private static final float MIN_RENDER_DPI = 9f;
+    
+    /**
+     * 检测区域像素数低于该值时不抽样，直接完整计数
+     */
+    private static final int MIN_SAMPLING_PIXELS = 10_000;
+    
+    /**
+     * 常用置信水平(%)及对应的标准正态分位数，配置值取最接近的一档
+     */
+    private static final double[][] CONFIDENCE_Z_SCORES = {
+        {80.0, 1.2816}, {90.0, 1.6449}, {95.0, 1.9600}, {98.0, 2.3263}, {99.0, 2.5758}, {99.9, 3.2905}
+    };
+    
+    /**
+     * 单图像直读时解码分辨率相对检测区域渲染分辨率的最低倍数
+     */
+    private static final int MAX_SUBSAMPLING_OVERSCAN = 4;
+    
+    /**
+     * 主检测区域在区域密度中的名称
+     */
+    public static final String PRIMARY_REGION_NAME = "主检测区域";
+    
+    private final AppConfig config;
+    
+    public ImageContentStage(AppConfig config) {
+        this.config = config;
+    }
+    
+    @Override
+    public String getName() {
+        return "图像内容";
+    }
+    
+    @Override
+    public int getEstimatedCost() {
+        return 1000;
+    }
+    
+    @Override
+    public StageResult evaluate(DetectionContext context) throws IOException {
+        // 前序阶段已确认页面有内容并投出正常结论，无需渲染
+        if (context.isContentConfirmed()) {
+            return StageResult.continueNext();
+        }
+        
+        PDDocument document = context.getDocument();
+        PDFFileInfo fileInfo = context.getFileInfo();
+        String fileName = context.getFile().getName();
+        
+        if (document.getNumberOfPages() == 0) {
+            logger.debug("PDF文件无页面: {}", fileName);
+            fileInfo.setDetectionMethod(DetectionMethod.DOCUMENT_STRUCTURE);
+            return StageResult.suspicious(DetectionResult.SUSPICIOUS_EMPTY_PIXELS);
+        }
+        
+        // 渲染前先解析内容流，证据充分时无需光栅化
+        PDPage firstPage = document.getPage(0);
+        boolean multiRegion = config.isMultiRegionAnalysis();
+        if (config.isEnableContentStreamTriage()) {
+            DetectionResult triageResult = triageByContentStream(firstPage, fileName, context.getDeadline());
+            // 多区域检测需要各区域的密度，内容流只能说明页面整体有内容，此时仅采用空白结论
+            if (triageResult != null && !(multiRegion && triageResult == DetectionResult.NORMAL)) {
+                fileInfo.setDetectionMethod(DetectionMethod.CONTENT_STREAM);
+                return toStageResult(triageResult);
+            }
+        }
+        
+        // 检测第一页的图像内容，仅渲染检测区域
+        PDFRenderer renderer = new DeadlineAwareRenderer(document, context.getDeadline());
+        float renderDpi = resolveRenderDpi(firstPage);
+        double threshold = config.getContentPixelDensityThreshold() / 100.0;
+        
+        if (multiRegion) {
+            fileInfo.setDetectionMethod(DetectionMethod.STANDARD_RENDER);
+            return toStageResult(analyzeRegions(renderer, firstPage, renderDpi, fileInfo, fileName));
+        }
+        
+        // 扫描件等单图像页面直接读取图像的检测区域
+        if (config.isEnableImageXObjectPath()) {
+            DetectionResult imageResult = analyzeByImageXObject(firstPage, renderDpi, fileName,
+                context.getDeadline(), threshold);
+            if (imageResult != null) {
+                fileInfo.setDetectionMethod(DetectionMethod.IMAGE_XOBJECT);
+                return toStageResult(imageResult);
+            }
+        }
+        
+        // 先低分辨率渲染，密度远低于阈值时直接判定疑似空；
+        // 细线在低分辨率下至少占满一个像素，密度被放大，因此低分辨率只采用疑似空结论，
+        // 接近或高于阈值的页面一律升级到标准分辨率复核
+        if (config.isEnableAdaptiveResolution()) {
+            float lowDpi = Math.min(config.getLowResolutionDpi(), renderDpi);
+            if (lowDpi > 0 && lowDpi < renderDpi) {
+                double band = config.getDensityUncertaintyBand() / 100.0;
+                BufferedImage lowImage = renderDetectionArea(renderer, firstPage, 0, lowDpi);
+                DetectionResult lowResult = analyzeImageContent(lowImage, fileName,
+                    threshold - band, Double.POSITIVE_INFINITY);
+                if (lowResult != null && lowResult != DetectionResult.NORMAL) {
+                    fileInfo.setDetectionMethod(DetectionMethod.LOW_RESOLUTION_RENDER);
+                    return toStageResult(lowResult);
+                }
+                logger.debug("低分辨率密度未低于 {}%，升级到 {} DPI 渲染: {}",
+                    String.format("%.2f", (threshold - band) * 100), String.format("%.1f", renderDpi), fileName);
+            }
+        }
+        
+        BufferedImage image = renderDetectionArea(renderer, firstPage, 0, renderDpi);
+        fileInfo.setDetectionMethod(DetectionMethod.STANDARD_RENDER);
+        return toStageResult(analyzeImageContent(image, fileName, threshold, threshold));
+    }
+    
+    /**
+     * 转换为阶段结果，检测失败时直接结束检测
+     */
+    private StageResult toStageResult(DetectionResult result) {
+        if (result == DetectionResult.NORMAL) {
+            return StageResult.normal();
+        } else if (result == DetectionResult.SUSPICIOUS_EMPTY_PIXELS) {
+            return StageResult.suspicious(result);
+        }
+        return StageResult.finalResult(result);
+    }
+    
+    /**
+     * 通过内容流操作符预判
+     * 返回null表示证据不足，需要继续渲染检测
+     */
+    private DetectionResult triageByContentStream(PDPage page, String fileName, DetectionDeadline deadline) {
+        try {
+            ContentStreamTriage triage = new ContentStreamTriage(page, getDetectionAreaInUserSpace(page),
+                config.getTriageNormalOperatorThreshold(), config.getContentPixelDensityThreshold() / 100.0,
+                deadline);
+            DetectionResult result = triage.triage();
+            if (result != null) {
+                logger.info("内容流预判 - 文件: {}, 绘制操作符: {}（检测区域内 {}，估算着墨 {}%）, 结论: {}（跳过渲染）",
+                    fileName, triage.getPaintOperatorCount(), triage.getAreaPaintOperatorCount(),
+                    String.format("%.1f", triage.getAreaCoverage() * 100), result.getFullDisplayText());
+            }
+            return result;
+        } catch (DetectionTimeoutException e) {
+            throw e;
+        } catch (IOException | RuntimeException | NoninvertibleTransformException e) {
+            // 预判失败不影响后续渲染检测
+            logger.debug("内容流预判失败，转为渲染检测: {} - {}", fileName, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 单图像页面直接读取图像统计密度
+     * 把检测区域（渲染像素坐标）经页面变换和图像变换映射到图像像素坐标，
+     * 按与渲染分辨率相当的子采样只解码该区域，省去整图全分辨率解码和合成绘制；
+     * 页面不是单图像、检测区域超出图像或被裁剪、图像有旋转剪切时返回null，转为渲染检测
+     */
+    private DetectionResult analyzeByImageXObject(PDPage page, float dpi, String fileName,
+                                                  DetectionDeadline deadline, double threshold) {
+        PageImageProbe probe = new PageImageProbe(page, deadline);
+        try {
+            if (!probe.probe()) {
+                return null;
+            }
+        } catch (DetectionTimeoutException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            logger.debug("单图像探测失败，转为渲染检测: {} - {}", fileName, e.getMessage());
+            return null;
+        }
+        
+        float scale = dpi / 72f;
+        int[] pageSize = getPagePixelSize(page, scale);
+        DetectionArea area = calculateDetectionArea(pageSize[0], pageSize[1],
+            config.getDetectionAreaWidthPercent(), config.getDetectionAreaHeightPercent(),
+            config.getHorizontalOffsetPercent(), 0);
+        Rectangle2D roi = new Rectangle2D.Double(area.startX, area.startY,
+            area.endX - area.startX, area.endY - area.startY);
+        if (roi.isEmpty()) {
+            return null;
+        }
+        
+        AffineTransform userToDevice = createPageTransform(page, scale);
+        if (!userToDevice.createTransformedShape(probe.getClipPath()).contains(roi)) {
+            logger.debug("单图像页面的裁剪区域未覆盖检测区域，转为渲染检测: {}", fileName);
+            return null;
+        }
+        
+        // 图像像素 -> 单位正方形（图像首行对应单位正方形顶部）-> 用户空间 -> 渲染像素
+        PDImageXObject image = probe.getImage();
+        int imageWidth = image.getWidth();
+        int imageHeight = image.getHeight();
+        AffineTransform pixelToDevice = new AffineTransform(userToDevice);
+        pixelToDevice.concatenate(probe.getImageTransform());
+        pixelToDevice.concatenate(new AffineTransform(1.0 / imageWidth, 0, 0, -1.0 / imageHeight, 0, 1));
+        if (!isAxisAligned(pixelToDevice)) {
+            return null;
+        }
+        Rectangle imageBounds = new Rectangle(0, 0, imageWidth, imageHeight);
+        if (!pixelToDevice.createTransformedShape(imageBounds).getBounds2D().contains(roi)) {
+            logger.debug("图像未覆盖检测区域，转为渲染检测: {}", fileName);
+            return null;
+        }
+        
+        Rectangle2D roiInImage;
+        try {
+            roiInImage = pixelToDevice.createInverse().createTransformedShape(roi).getBounds2D();
+        } catch (NoninvertibleTransformException e) {
+            return null;
+        }
+        int x0 = (int) Math.floor(roiInImage.getMinX());
+        int y0 = (int) Math.floor(roiInImage.getMinY());
+        int x1 = (int) Math.ceil(roiInImage.getMaxX());
+        int y1 = (int) Math.ceil(roiInImage.getMaxY());
+        Rectangle region = new Rectangle(x0, y0, x1 - x0, y1 - y0).intersection(imageBounds);
+        if (region.isEmpty()) {
+            return null;
+        }
+        
+        // 子采样保留约4倍于渲染检测区域的线分辨率，再按渲染器的方式缩放到检测区域尺寸；
+        // 子采样只在高分辨率扫描件上生效，细于子采样步长的线条仍可能被削弱
+        double pixelRatio = ((double) region.width * region.height) / (roi.getWidth() * roi.getHeight());
+        int subsampling = Math.max(1, (int) Math.floor(Math.sqrt(pixelRatio) / MAX_SUBSAMPLING_OVERSCAN));
+        BufferedImage decoded;
+        try {
+            // PDFBox 2.0的8位图像读取在不子采样时会忽略读取区域，此时整图解码后裁剪
+            decoded = subsampling > 1
+                ? image.getImage(region, subsampling)
+                : image.getImage().getSubimage(region.x, region.y, region.width, region.height);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("图像读取失败，转为渲染检测: {} - {}", fileName, e.getMessage());
+            return null;
+        }
+        deadline.check();
+        
+        // 图像旋转90度绘制时，图像的宽对应检测区域的高
+        boolean quarterTurn = Math.abs(pixelToDevice.getScaleX()) < Math.abs(pixelToDevice.getShearX());
+        int targetWidth = (int) Math.round(quarterTurn ? roi.getHeight() : roi.getWidth());
+        int targetHeight = (int) Math.round(quarterTurn ? roi.getWidth() : roi.getHeight());
+        logger.debug("单图像直读 - 图像: {}x{}, 读取区域: {}, 子采样: {}, 解码: {}x{}, 缩放至: {}x{}",
+            imageWidth, imageHeight, region, subsampling, decoded.getWidth(), decoded.getHeight(),
+            targetWidth, targetHeight);
+        return analyzeImageContent(toGrayImage(decoded, targetWidth, targetHeight), fileName, threshold, threshold);
+    }
+    
+    /**
+     * 主检测区域映射回页面用户空间的外接矩形，供内容流预判按区域统计绘制操作符
+     */
+    private Rectangle2D getDetectionAreaInUserSpace(PDPage page) throws NoninvertibleTransformException {
+        int[] pageSize = getPagePixelSize(page, 1f);
+        DetectionArea area = calculateDetectionArea(pageSize[0], pageSize[1],
+            config.getDetectionAreaWidthPercent(), config.getDetectionAreaHeightPercent(),
+            config.getHorizontalOffsetPercent(), 0);
+        Rectangle2D roi = new Rectangle2D.Double(area.startX, area.startY,
+            area.endX - area.startX, area.endY - area.startY);
+        return createPageTransform(page, 1f).createInverse().createTransformedShape(roi).getBounds2D();
+    }
+    
+    /**
+     * 与渲染器一致的页面变换：用户空间 -> 渲染像素（含缩放、旋转和Y轴翻转）
+     */
+    private static AffineTransform createPageTransform(PDPage page, float scale) {
+        PDRectangle cropBox = page.getCropBox();
+        AffineTransform transform = AffineTransform.getScaleInstance(scale, scale);
+        int rotation = page.getRotation();
+        if (rotation != 0) {
+            double translateX = 0;
+            double translateY = 0;
+            switch (rotation) {
+                case 90:
+                    translateX = cropBox.getHeight();
+                    break;
+                case 270:
+                    translateY = cropBox.getWidth();
+                    break;
+                case 180:
+                    translateX = cropBox.getWidth();
+                    translateY = cropBox.getHeight();
+                    break;
+                default:
+                    break;
+            }
+            transform.translate(translateX, translateY);
+            transform.rotate(Math.toRadians(rotation));
+        }
+        transform.translate(0, cropBox.getHeight());
+        transform.scale(1, -1);
+        transform.translate(-cropBox.getLowerLeftX(), -cropBox.getLowerLeftY());
+        return transform;
+    }
+    
+    /**
+     * 变换是否保持轴对齐（仅缩放、翻转或90度倍数旋转）
+     */
+    private static boolean isAxisAligned(AffineTransform transform) {
+        double epsilon = 1e-6 * Math.max(Math.abs(transform.getScaleX()) + Math.abs(transform.getShearX()),
+            Math.abs(transform.getScaleY()) + Math.abs(transform.getShearY()));
+        boolean noShear = Math.abs(transform.getShearX()) <= epsilon && Math.abs(transform.getShearY()) <= epsilon;
+        boolean quarterTurn = Math.abs(transform.getScaleX()) <= epsilon && Math.abs(transform.getScaleY()) <= epsilon;
+        return noShear || quarterTurn;
+    }
+    
+    /**
+     * 缩放并转换为灰度图，与渲染器绘制图像的方式一致：
+     * 大幅缩小时先在RGB上按面积平均（细线条淡化为灰色而不是丢失），否则双三次插值，最后转为灰度
+     */
+    private static BufferedImage toGrayImage(BufferedImage image, int width, int height) {
+        width = Math.max(1, width);
+        height = Math.max(1, height);
+        BufferedImage source = image;
+        if (width * 2 <= image.getWidth() || height * 2 <= image.getHeight()) {
+            source = boxDownscale(image, width, height);
+        }
+        
+        BufferedImage gray = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = gray.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setBackground(Color.WHITE);
+            graphics.clearRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return gray;
+    }
+    
+    /**
+     * 按面积平均缩小，每个目标像素取其覆盖的源像素各通道均值
+     */
+    private static BufferedImage boxDownscale(BufferedImage image, int width, int height) {
+        int sourceWidth = image.getWidth();
+        int sourceHeight = image.getHeight();
+        int[] columnOf = new int[sourceWidth];
+        for (int x = 0; x < sourceWidth; x++) {
+            columnOf[x] = (int) ((long) x * width / sourceWidth);
+        }
+        
+        long[] red = new long[width];
+        long[] green = new long[width];
+        long[] blue = new long[width];
+        int[] counts = new int[width];
+        int[] row = new int[sourceWidth];
+        int[] targetRow = new int[width];
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int sourceY = 0;
+        for (int y = 0; y < height; y++) {
+            int endY = Math.max((int) ((long) (y + 1) * sourceHeight / height), sourceY + 1);
+            Arrays.fill(red, 0);
+            Arrays.fill(green, 0);
+            Arrays.fill(blue, 0);
+            Arrays.fill(counts, 0);
+            for (; sourceY < endY && sourceY < sourceHeight; sourceY++) {
+                image.getRGB(0, sourceY, sourceWidth, 1, row, 0, sourceWidth);
+                for (int x = 0; x < sourceWidth; x++) {
+                    int column = columnOf[x];
+                    int rgb = row[x];
+                    red[column] += (rgb >> 16) & 0xFF;
+                    green[column] += (rgb >> 8) & 0xFF;
+                    blue[column] += rgb & 0xFF;
+                    counts[column]++;
+                }
+            }
+            for (int x = 0; x < width; x++) {
+                int count = counts[x];
+                targetRow[x] = count == 0 ? 0xFFFFFF
+                    : (int) (red[x] / count) << 16 | (int) (green[x] / count) << 8 | (int) (blue[x] / count);
+            }
+            result.setRGB(0, y, width, 1, targetRow, 0, width);
+        }
+        return result;
+    }
+    
+    /**
+     * 根据页面尺寸和像素预算确定渲染分辨率
+     * 整页在默认分辨率下超出预算时按面积等比降低DPI，使大幅面图纸的渲染开销保持恒定；
+     * 细线在较低DPI下至少占满一个像素，同一图纸的密度会偏高，因此预算默认关闭
+     */
+    private float resolveRenderDpi(PDPage page) {
+        double budgetPixels = config.getMaxRenderMegapixels() * 1_000_000d;
+        if (budgetPixels <= 0) {
+            return RENDER_DPI;
+        }
+        
+        PDRectangle cropBox = page.getCropBox();
+        double pagePixels = (cropBox.getWidth() * RENDER_DPI / 72d) * (cropBox.getHeight() * RENDER_DPI / 72d);
+        if (pagePixels <= budgetPixels) {
+            return RENDER_DPI;
+        }
+        
+        float dpi = (float) (RENDER_DPI * Math.sqrt(budgetPixels / pagePixels));
+        dpi = Math.max(MIN_RENDER_DPI, dpi);
+        logger.debug("页面尺寸 {}x{}pt 超出像素预算 {}MP，渲染DPI降为 {}",
+            cropBox.getWidth(), cropBox.getHeight(), config.getMaxRenderMegapixels(), String.format("%.1f", dpi));
+        return dpi;
+    }
+    
+    /**
+     * 仅渲染检测区域
+     */
+    private BufferedImage renderDetectionArea(PDFRenderer renderer, PDPage page, int pageIndex, float dpi)
+            throws IOException {
+        float scale = dpi / 72f;
+        int[] pageSize = getPagePixelSize(page, scale);
+        DetectionArea area = calculateDetectionArea(pageSize[0], pageSize[1],
+            config.getDetectionAreaWidthPercent(), config.getDetectionAreaHeightPercent(),
+            config.getHorizontalOffsetPercent(), 0);
+        BufferedImage image = renderArea(renderer, pageIndex, area, scale);
+        
+        logger.debug("检测区域渲染 - 整页: {}x{}, 检测区域: {}x{}, DPI: {}",
+            pageSize[0], pageSize[1], image.getWidth(), image.getHeight(), dpi);
+        return image;
+    }
+    
+    /**
+     * 按渲染器的页面尺寸规则（CropBox + 旋转）计算整页像素尺寸
+     * @return {宽, 高}
+     */
+    private static int[] getPagePixelSize(PDPage page, float scale) {
+        PDRectangle cropBox = page.getCropBox();
+        int pageWidthPx = (int) Math.max(Math.floor(cropBox.getWidth() * scale), 1);
+        int pageHeightPx = (int) Math.max(Math.floor(cropBox.getHeight() * scale), 1);
+        int rotation = page.getRotation();
+        if (rotation == 90 || rotation == 270) {
+            return new int[] {pageHeightPx, pageWidthPx};
+        }
+        return new int[] {pageWidthPx, pageHeightPx};
+    }
+    
+    /**
+     * 把页面平移、裁剪后绘制到区域大小的灰度图上
+     */
+    private static BufferedImage renderArea(PDFRenderer renderer, int pageIndex, DetectionArea area, float scale)
+            throws IOException {
+        int areaWidth = Math.max(1, area.endX - area.startX);
+        int areaHeight = Math.max(1, area.endY - area.startY);
+        
+        BufferedImage image = new BufferedImage(areaWidth, areaHeight, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setBackground(Color.WHITE);
+            graphics.clearRect(0, 0, areaWidth, areaHeight);
+            graphics.clipRect(0, 0, areaWidth, areaHeight);
+            graphics.translate(-area.startX, -area.startY);
+            renderer.renderPageToGraphics(pageIndex, graphics, scale, scale, RenderDestination.EXPORT);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+    
+    /**
+     * 多区域检测
+     * 只渲染全部区域的外接矩形，单次扫描同时统计各区域内容像素和亮度直方图；
+     * 主检测区域低于密度阈值，或设置了阈值的附加区域低于其阈值，判定为疑似空
+     */
+    private DetectionResult analyzeRegions(PDFRenderer renderer, PDPage page, float dpi,
+                                           PDFFileInfo fileInfo, String fileName) throws IOException {
+        float scale = dpi / 72f;
+        int[] pageSize = getPagePixelSize(page, scale);
+        int width = pageSize[0];
+        int height = pageSize[1];
+        
+        List<RegionCount> regions = new ArrayList<>();
+        regions.add(new RegionCount(PRIMARY_REGION_NAME,
+            calculateDetectionArea(width, height, config.getDetectionAreaWidthPercent(),
+                config.getDetectionAreaHeightPercent(), config.getHorizontalOffsetPercent(), 0),
+            config.getContentPixelDensityThreshold() / 100.0));
+        for (DetectionRegion region : config.getAdditionalDetectionRegions()) {
+            regions.add(new RegionCount(region.getName(),
+                calculateDetectionArea(width, height, region.getWidthPercent(), region.getHeightPercent(),
+                    region.getHorizontalOffsetPercent(), region.getVerticalOffsetPercent()),
+                region.hasDensityThreshold() ? region.getDensityThreshold() / 100.0 : -1));
+        }
+        
+        DetectionArea bounds = regions.get(0).area;
+        for (RegionCount region : regions) {
+            bounds = bounds.union(region.area);
+        }
+        BufferedImage image = renderArea(renderer, 0, bounds, scale);
+        logger.debug("多区域渲染 - 整页: {}x{}, 外接区域: {}x{}, 区域数: {}, DPI: {}",
+            width, height, image.getWidth(), image.getHeight(), regions.size(), dpi);
+        
+        int[] histogram = config.isEnableLuminanceHistogram() ? new int[256] : null;
+        scanRegions(image, bounds, regions, histogram);
+        
+        DetectionResult result = DetectionResult.NORMAL;
+        for (RegionCount region : regions) {
+            double density = region.getDensity();
+            String densityText = String.format("%.2f", density * 100);
+            fileInfo.putRegionDensity(region.name, density * 100);
+            if (region.threshold < 0) {
+                logger.info("区域内容分析 - 文件: {}, 区域: {}, 内容像素密度: {}%（仅记录）",
+                    fileName, region.name, densityText);
+            } else if (density < region.threshold) {
+                logger.info("区域内容分析 - 文件: {}, 区域: {}, 内容像素密度: {}% < 阈值 {}%，判定为疑似空",
+                    fileName, region.name, densityText, String.format("%.2f", region.threshold * 100));
+                result = DetectionResult.SUSPICIOUS_EMPTY_PIXELS;
+            } else {
+                logger.info("区域内容分析 - 文件: {}, 区域: {}, 内容像素密度: {}% >= 阈值 {}%",
+                    fileName, region.name, densityText, String.format("%.2f", region.threshold * 100));
+            }
+        }
+        
+        if (histogram != null) {
+            fileInfo.setLuminanceHistogram(histogram);
+            logger.debug("亮度直方图 - 文件: {}, 平均亮度: {}", fileName,
+                String.format("%.1f", meanLuminance(histogram)));
+        }
+        return result;
+    }
+    
+    /**
+     * 单次扫描图像（图像即外接区域）：逐行累计内容像素前缀和，
+     * 各区域按行取前缀和差值计数；同时累计整幅图像的亮度直方图
+     */
+    private static void scanRegions(BufferedImage image, DetectionArea bounds, List<RegionCount> regions,
+                                    int[] histogram) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] prefix = new int[width + 1];
+        
+        WritableRaster raster = image.getRaster();
+        boolean direct = raster.getDataBuffer() instanceof DataBufferByte
+            && raster.getSampleModel() instanceof ComponentSampleModel;
+        byte[] data = null;
+        int scanlineStride = 0;
+        int pixelStride = 0;
+        int rowOffset = 0;
+        int[] samples = null;
+        if (direct) {
+            ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+            data = ((DataBufferByte) raster.getDataBuffer()).getData();
+            scanlineStride = sampleModel.getScanlineStride();
+            pixelStride = sampleModel.getPixelStride();
+            rowOffset = raster.getDataBuffer().getOffset() + sampleModel.getOffset(
+                -raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY());
+        }
+        
+        for (int y = 0; y < height; y++) {
+            if (direct) {
+                for (int x = 0, i = rowOffset; x < width; x++, i += pixelStride) {
+                    int gray = data[i] & 0xFF;
+                    if (histogram != null) {
+                        histogram[gray]++;
+                    }
+                    prefix[x + 1] = GRAY_CONTENT_LUT[gray] ? prefix[x] + 1 : prefix[x];
+                }
+                rowOffset += scanlineStride;
+            } else {
+                samples = raster.getSamples(0, y, width, 1, 0, samples);
+                for (int x = 0; x < width; x++) {
+                    int gray = samples[x] & 0xFF;
+                    if (histogram != null) {
+                        histogram[gray]++;
+                    }
+                    prefix[x + 1] = GRAY_CONTENT_LUT[gray] ? prefix[x] + 1 : prefix[x];
+                }
+            }
+            
+            int pageY = bounds.startY + y;
+            for (RegionCount region : regions) {
+                DetectionArea area = region.area;
+                if (pageY >= area.startY && pageY < area.endY) {
+                    region.contentPixels += prefix[area.endX - bounds.startX] - prefix[area.startX - bounds.startX];
+                }
+            }
+        }
+    }
+    
+    private static double meanLuminance(int[] histogram) {
+        long total = 0;
+        long sum = 0;
+        for (int gray = 0; gray < histogram.length; gray++) {
+            total += histogram[gray];
+            sum += (long) gray * histogram[gray];
+        }
+        return total == 0 ? 0 : (double) sum / total;
+    }
+    
+    /**
+     * 分析图像内容（图像即检测区域）
+     * 密度不低于上界判定为正常，低于下界判定为疑似空；
+     * 上下界不同时（低分辨率预检），落在区间内返回null表示需要升级渲染；
+     * 上界为正无穷时只可能判定疑似空
+     */
+    private DetectionResult analyzeImageContent(BufferedImage image, String fileName,
+                                                double lowerBound, double upperBound) {
+        if (image == null) {
+            logger.warn("无法渲染PDF页面: {}", fileName);
+            return DetectionResult.DETECTION_FAILED;
+        }
+        
+        DetectionArea area = new DetectionArea(0, 0, image.getWidth(), image.getHeight());
+        
+        // 大区域先抽样估计，置信区间完全落在判定边界一侧时直接采用结论
+        if (config.isEnableSampledDensity() && area.getPixelCount() >= MIN_SAMPLING_PIXELS) {
+            DetectionResult sampledResult = analyzeBySampling(image, area, fileName, lowerBound, upperBound);
+            if (sampledResult != null) {
+                return sampledResult;
+            }
+        }
+        
+        // 统计内容像素（反向判断：统计非白色像素），结论确定后提前结束
+        DensityCount densityCount = countContentPixels(image, area, lowerBound, upperBound);
+        
+        // 计算内容像素密度（内容像素占总像素的比例），提前结束时为已扫描部分的统计值，
+        // 与上下界的比较结果和完整统计一致
+        double contentPixelDensity = densityCount.getDensity();
+        String densityText = String.format("%.2f", contentPixelDensity * 100);
+        String boundText = lowerBound == upperBound || Double.isInfinite(upperBound)
+            ? String.format("%.2f", lowerBound * 100)
+            : String.format("%.2f~%.2f", lowerBound * 100, upperBound * 100);
+        
+        if (densityCount.isDecidedEarly()) {
+            logger.info("图像内容分析 - 文件: {}, 内容像素密度: {}%（提前判定，已扫描 {}/{} 像素）, 阈值: {}%",
+                fileName, densityText, densityCount.scannedPixels, densityCount.totalPixels, boundText);
+        } else {
+            logger.info("图像内容分析 - 文件: {}, 内容像素密度: {}%, 阈值: {}%", 
+                fileName, densityText, boundText);
+        }
+        
+        // 反向判断：如果内容像素密度低于阈值，则认为是空白或内容稀少的文档
+        if (contentPixelDensity < lowerBound) {
+            logger.info("判断依据: 内容像素密度 {}% < 阈值 {}%，判定为疑似空文件", densityText, boundText);
+            return DetectionResult.SUSPICIOUS_EMPTY_PIXELS;
+        } else if (contentPixelDensity >= upperBound) {
+            logger.info("判断依据: 内容像素密度 {}% >= 阈值 {}%，判定为正常文件", densityText, boundText);
+            return DetectionResult.NORMAL;
+        }
+        return null;
+    }
+    
+    /**
+     * 分层抽样估计内容像素密度
+     * 区域划分为 step x step 的网格，每格取一个像素（格内位置按格坐标散列，避免与规则图线同相），
+     * 用Wilson区间估计密度；区间上限低于下界判定为疑似空，区间下限不低于上界判定为正常，
+     * 区间跨越判定边界时返回null，由调用方完整计数
+     */
+    private DetectionResult analyzeBySampling(BufferedImage image, DetectionArea area, String fileName,
+                                              double lowerBound, double upperBound) {
+        double sampleRate = Math.min(100.0, Math.max(0.01, config.getDensitySampleRate())) / 100.0;
+        int step = Math.max(1, (int) Math.round(Math.sqrt(1.0 / sampleRate)));
+        if (step == 1) {
+            return null;
+        }
+        
+        DensityCount sample = sampleContentPixels(image, area, step);
+        double z = resolveZScore(config.getDensityConfidenceLevel());
+        double[] interval = wilsonInterval(sample.contentPixels, sample.scannedPixels, z);
+        String intervalText = String.format("%.2f%%~%.2f%%", interval[0] * 100, interval[1] * 100);
+        
+        if (interval[1] < lowerBound) {
+            logger.info("图像内容抽样 - 文件: {}, 抽样 {}/{} 像素, 密度置信区间: {} < 阈值 {}%，判定为疑似空文件",
+                fileName, sample.scannedPixels, sample.totalPixels, intervalText,
+                String.format("%.2f", lowerBound * 100));
+            return DetectionResult.SUSPICIOUS_EMPTY_PIXELS;
+        } else if (interval[0] >= upperBound) {
+            logger.info("图像内容抽样 - 文件: {}, 抽样 {}/{} 像素, 密度置信区间: {} >= 阈值 {}%，判定为正常文件",
+                fileName, sample.scannedPixels, sample.totalPixels, intervalText,
+                String.format("%.2f", upperBound * 100));
+            return DetectionResult.NORMAL;
+        }
+        logger.debug("图像内容抽样 - 文件: {}, 密度置信区间 {} 跨越阈值，转为完整计数", fileName, intervalText);
+        return null;
+    }
+    
+    /**
+     * 每个网格取一个像素统计内容像素，scannedPixels为抽样数
+     */
+    private static DensityCount sampleContentPixels(BufferedImage image, DetectionArea area, int step) {
+        WritableRaster raster = image.getRaster();
+        boolean gray = image.getType() == BufferedImage.TYPE_BYTE_GRAY;
+        int count = 0;
+        int sampled = 0;
+        for (int cellY = area.startY; cellY < area.endY; cellY += step) {
+            int cellHeight = Math.min(step, area.endY - cellY);
+            for (int cellX = area.startX; cellX < area.endX; cellX += step) {
+                int cellWidth = Math.min(step, area.endX - cellX);
+                int hash = mixCell(cellX, cellY);
+                int x = cellX + Math.floorMod(hash, cellWidth);
+                int y = cellY + Math.floorMod(hash >>> 16, cellHeight);
+                boolean content = gray
+                    ? GRAY_CONTENT_LUT[raster.getSample(x, y, 0)]
+                    : isContentPixel(image.getRGB(x, y));
+                if (content) {
+                    count++;
+                }
+                sampled++;
+            }
+        }
+        return new DensityCount(count, sampled, area.getPixelCount());
+    }
+    
+    private static int mixCell(int x, int y) {
+        int hash = x * 0x9E3779B1 + y * 0x85EBCA6B;
+        hash ^= hash >>> 15;
+        hash *= 0x2C1B3C6D;
+        return hash ^ (hash >>> 13);
+    }
+    
+    /**
+     * Wilson得分区间，抽样比例接近0或1时仍然有效
+     * @return {下限, 上限}
+     */
+    private static double[] wilsonInterval(int successes, int trials, double z) {
+        if (trials == 0) {
+            return new double[] {0.0, 1.0};
+        }
+        double p = (double) successes / trials;
+        double z2 = z * z;
+        double denominator = 1 + z2 / trials;
+        double center = (p + z2 / (2.0 * trials)) / denominator;
+        double margin = z * Math.sqrt(p * (1 - p) / trials + z2 / (4.0 * trials * trials)) / denominator;
+        return new double[] {Math.max(0.0, center - margin), Math.min(1.0, center + margin)};
+    }
+    
+    private static double resolveZScore(double confidenceLevel) {
+        double[] nearest = CONFIDENCE_Z_SCORES[0];
+        for (double[] entry : CONFIDENCE_Z_SCORES) {
+            if (Math.abs(entry[0] - confidenceLevel) < Math.abs(nearest[0] - confidenceLevel)) {
+                nearest = entry;
+            }
+        }
+        return nearest[1];
+    }
+    
+    /**
+     * 计算检测区域
+     * @param horizontalOffsetPercent 中心点水平偏移，-100左，+100右，0居中
+     * @param verticalOffsetPercent 中心点垂直偏移，-100上，+100下，0居中
+     */
+    private DetectionArea calculateDetectionArea(int width, int height, double areaWidthPercent,
+                                                 double areaHeightPercent, int horizontalOffsetPercent,
+                                                 int verticalOffsetPercent) {
+        // 使用百分比计算ROI尺寸
+        int areaWidth = (int) Math.round(width * (areaWidthPercent / 100.0));
+        int areaHeight = (int) Math.round(height * (areaHeightPercent / 100.0));
+        
+        // 约束到图像尺寸范围，至少1像素
+        areaWidth = Math.max(1, Math.min(areaWidth, width));
+        areaHeight = Math.max(1, Math.min(areaHeight, height));
+        
+        // 计算中心点：偏移相对图像中心
+        int offsetPercent = horizontalOffsetPercent;
+        int centerX = (int) Math.round(width / 2.0 + (offsetPercent / 100.0) * (width / 2.0));
+        int centerY = (int) Math.round(height / 2.0 + (verticalOffsetPercent / 100.0) * (height / 2.0));
+        
+        // 以中心点为基准计算区域，超出边界时仅显示被遮挡部分（通过边界裁剪实现）
+        int startX = centerX - areaWidth / 2;
+        int startY = centerY - areaHeight / 2;
+        int endX = startX + areaWidth;
+        int endY = startY + areaHeight;
+        
+        // 边界裁剪，保证采样坐标有效
+        int clippedStartX = Math.max(0, startX);
+        int clippedStartY = Math.max(0, startY);
+        int clippedEndX = Math.min(width, endX);
+        int clippedEndY = Math.min(height, endY);
+        
+        logger.debug("检测区域计算 - 图像尺寸: {}x{}, 百分比: {}%x{}%, 偏移%: {}, 实际像素: {}x{}, 原始位置: ({},{})->({},{}), 裁剪后: ({},{})->({},{})",
+            width, height,
+            String.format("%.2f", areaWidthPercent), String.format("%.2f", areaHeightPercent), offsetPercent,
+            areaWidth, areaHeight,
+            startX, startY, endX, endY,
+            clippedStartX, clippedStartY, clippedEndX, clippedEndY);
+        
+        return new DetectionArea(clippedStartX, clippedStartY, clippedEndX, clippedEndY);
+    }
+    
+    /**
+     * 统计检测区域内的内容像素数量
+     * 灰度图直接扫描底层字节数组，其余类型回退到逐像素getRGB；
+     * 每扫描完一行检查一次判定边界，结论已确定时提前结束
+     */
+    private DensityCount countContentPixels(BufferedImage image, DetectionArea area,
+                                            double lowerBound, double upperBound) {
+        int totalPixels = area.getPixelCount();
+        int rowPixels = area.endX - area.startX;
+        int count = 0;
+        int scanned = 0;
+        
+        WritableRaster raster = image.getRaster();
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY
+                && raster.getDataBuffer() instanceof DataBufferByte
+                && raster.getSampleModel() instanceof ComponentSampleModel) {
+            ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+            byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+            int scanlineStride = sampleModel.getScanlineStride();
+            int pixelStride = sampleModel.getPixelStride();
+            // 子图像的栅格坐标需要加上平移量
+            int baseX = area.startX - raster.getSampleModelTranslateX();
+            int baseY = area.startY - raster.getSampleModelTranslateY();
+            int rowOffset = raster.getDataBuffer().getOffset() + sampleModel.getOffset(baseX, baseY);
+            int rowLength = rowPixels * pixelStride;
+            
+            for (int y = area.startY; y < area.endY; y++) {
+                int rowEnd = rowOffset + rowLength;
+                for (int i = rowOffset; i < rowEnd; i += pixelStride) {
+                    if (GRAY_CONTENT_LUT[data[i] & 0xFF]) {
+                        count++;
+                    }
+                }
+                rowOffset += scanlineStride;
+                scanned += rowPixels;
+                if (isDecided(count, scanned, totalPixels, lowerBound, upperBound)) {
+                    break;
+                }
+            }
+        } else {
+            for (int y = area.startY; y < area.endY; y++) {
+                for (int x = area.startX; x < area.endX; x++) {
+                    if (isContentPixel(image.getRGB(x, y))) {
+                        count++;
+                    }
+                }
+                scanned += rowPixels;
+                if (isDecided(count, scanned, totalPixels, lowerBound, upperBound)) {
+                    break;
+                }
+            }
+        }
+        return new DensityCount(count, scanned, totalPixels);
+    }
+    
+    /**
+     * 判断结论是否已确定：
+     * 已达到上界（剩余像素不可能使密度降到上界以下），
+     * 或剩余像素全部为内容也无法达到下界
+     */
+    private static boolean isDecided(int count, int scanned, int totalPixels,
+                                     double lowerBound, double upperBound) {
+        if (scanned >= totalPixels) {
+            return false;
+        }
+        double reachedDensity = (double) count / totalPixels;
+        double bestDensity = (double) (count + (totalPixels - scanned)) / totalPixels;
+        return reachedDensity >= upperBound || bestDensity < lowerBound;
+    }
+    
+    /**
+     * 构建灰度内容像素查找表：亮度不高于阈值即为内容像素
+     * 与按RGB分量判定（任一分量不高于阈值即为内容）相比，各分量均高于阈值的近白色结论相同，
+     * 但亮度高于阈值的浅色饱和色改判为背景，例如浅黄 (255,255,200) 亮度约249、
+     * 浅青 (230,255,255) 约248；这类颜色在图纸上几乎不可见，按背景处理不影响空白判定
+     */
+    private static boolean[] buildGrayContentLut() {
+        boolean[] lut = new boolean[256];
+        for (int gray = 0; gray < lut.length; gray++) {
+            lut[gray] = gray <= WHITE_THRESHOLD;
+        }
+        return lut;
+    }
+    
+    /**
+     * 判断是否为内容像素（非白色/背景像素）
+     * 反向判断：检测有实际内容的像素
+     */
+    private static boolean isContentPixel(int rgb) {
+        int red = (rgb >> 16) & 0xFF;
+        int green = (rgb >> 8) & 0xFF;
+        int blue = rgb & 0xFF;
+        
+        // 内容像素：RGB值不全是接近白色的像素
+        // 使用更宽松的阈值来识别各种内容（文字、线条、图像等）
+        return !(red > WHITE_THRESHOLD && green > WHITE_THRESHOLD && blue > WHITE_THRESHOLD);
+    }
+    
+    /**
+     * 内容像素计数结果
+     */
+    private static class DensityCount {
+        final int contentPixels;
+        final int scannedPixels;
+        final int totalPixels;
+        
+        DensityCount(int contentPixels, int scannedPixels, int totalPixels) {
+            this.contentPixels = contentPixels;
+            this.scannedPixels = scannedPixels;
+            this.totalPixels = totalPixels;
+        }
+        
+        /**
+         * 内容像素占检测区域总像素的比例（提前结束时为部分统计值）
+         */
+        double getDensity() {
+            return totalPixels == 0 ? 0.0 : (double) contentPixels / totalPixels;
+        }
+        
+        /**
+         * 是否在扫描完整个区域前已确定结论
+         */
+        boolean isDecidedEarly() {
+            return scannedPixels < totalPixels;
+        }
+    }
+    
+    /**
+     * 检测区域内部类
+     */
+    private static class DetectionArea {
+        final int startX, startY, endX, endY;
+        
+        DetectionArea(int startX, int startY, int endX, int endY) {
+            this.startX = startX;
+            this.startY = startY;
+            this.endX = endX;
+            this.endY = endY;
+        }
+        
+        int getPixelCount() {
+            return (endX - startX) * (endY - startY);
+        }
+        
+        DetectionArea union(DetectionArea other) {
+            return new DetectionArea(Math.min(startX, other.startX), Math.min(startY, other.startY),
+                Math.max(endX, other.endX), Math.max(endY, other.endY));
+        }
+    }
+    
+    /**
+     * 多区域检测中单个区域的计数
+     */
+    private static class RegionCount {
+        final String name;
+        final DetectionArea area;
+        final double threshold;
+        int contentPixels;
+        
+        /**
+         * @param threshold 密度阈值（比例），小于0表示仅记录密度
+         */
+        RegionCount(String name, DetectionArea area, double threshold) {
+            this.name = name;
+            this.area = area;
+            this.threshold = threshold;
+        }
+        
+        double getDensity() {
+            int totalPixels = area.getPixelCount();
+            return totalPixels <= 0 ? 0.0 : (double) contentPixels / totalPixels;
+        }
+    }
+}
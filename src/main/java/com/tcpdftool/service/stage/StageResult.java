@@ -0,0 +1,74 @@
+package com.tcpdftool.service.stage;
+
+import com.tcpdftool.model.DetectionResult;
+
+/**
+ * 检测阶段结果
+ */
+public class StageResult {
+    
+    /**
+     * 阶段结论类型
+     */
+    public enum Kind {
+        /**
+         * 无结论，继续后续阶段
+         */
+        CONTINUE,
+        
+        /**
+         * 判定正常
+         */
+        NORMAL,
+        
+        /**
+         * 判定疑似空
+         */
+        SUSPICIOUS,
+        
+        /**
+         * 最终结论，不受组合策略影响，直接结束检测
+         */
+        FINAL
+    }
+    
+    private static final StageResult CONTINUE_RESULT = new StageResult(Kind.CONTINUE, null);
+    private static final StageResult NORMAL_RESULT = new StageResult(Kind.NORMAL, DetectionResult.NORMAL);
+    
+    private final Kind kind;
+    private final DetectionResult result;
+    
+    private StageResult(Kind kind, DetectionResult result) {
+        this.kind = kind;
+        this.result = result;
+    }
+    
+    public static StageResult continueNext() {
+        return CONTINUE_RESULT;
+    }
+    
+    public static StageResult normal() {
+        return NORMAL_RESULT;
+    }
+    
+    public static StageResult suspicious(DetectionResult result) {
+        return new StageResult(Kind.SUSPICIOUS, result);
+    }
+    
+    public static StageResult finalResult(DetectionResult result) {
+        return new StageResult(Kind.FINAL, result);
+    }
+    
+    public Kind getKind() {
+        return kind;
+    }
+    
+    public DetectionResult getResult() {
+        return result;
+    }
+    
+    @Override
+    public String toString() {
+        return result == null ? kind.name() : kind.name() + "(" + result.name() + ")";
+    }
+}
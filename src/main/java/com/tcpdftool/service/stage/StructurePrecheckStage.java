@@ -0,0 +1,47 @@
+package com.tcpdftool.service.stage;
+
+import com.tcpdftool.model.DetectionMethod;
+import com.tcpdftool.model.DetectionResult;
+import com.tcpdftool.model.PDFFileInfo;
+import com.tcpdftool.service.PDFStructurePrecheck;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * 结构预检阶段：文件头尾结构不完整的文件无需加载
+ */
+public class StructurePrecheckStage implements DetectionStage {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StructurePrecheckStage.class);
+    
+    @Override
+    public String getName() {
+        return "结构预检";
+    }
+    
+    /**
+     * 最先执行：结构不完整的文件必须判定为TRUNCATED，
+     * 不能被大小阶段的结论按组合策略提前短路
+     */
+    @Override
+    public int getEstimatedCost() {
+        return 0;
+    }
+    
+    @Override
+    public StageResult evaluate(DetectionContext context) throws IOException {
+        String brokenReason = PDFStructurePrecheck.check(context.getFile());
+        if (brokenReason == null) {
+            return StageResult.continueNext();
+        }
+        
+        PDFFileInfo fileInfo = context.getFileInfo();
+        logger.info("检测到不完整PDF文件: {} (大小: {}) - {}",
+            fileInfo.getFileName(), fileInfo.getFormattedFileSize(), brokenReason);
+        fileInfo.setErrorMessage(brokenReason);
+        fileInfo.setDetectionMethod(DetectionMethod.STRUCTURE_PRECHECK);
+        return StageResult.finalResult(DetectionResult.TRUNCATED);
+    }
+}
@@ -0,0 +1,100 @@
+package com.tcpdftool.service.stage;
+
+import com.tcpdftool.config.AppConfig;
+import com.tcpdftool.model.DetectionMethod;
+import com.tcpdftool.service.TextLayerGlyphCounter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文本层快速判定阶段
+ * 第一页可见字形数达到下限时判定页面有内容并跳过图像渲染；
+ * 字形不足时不下结论，由图像内容检测继续判断
+ */
+public class TextLayerStage implements DetectionStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(TextLayerStage.class);
+
+    private final AppConfig config;
+    private final AtomicLong evaluatedCount = new AtomicLong();
+    private final AtomicLong decidedCount = new AtomicLong();
+
+    public TextLayerStage(AppConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public String getName() {
+        return "文本层";
+    }
+
+    @Override
+    public int getEstimatedCost() {
+        return 50;
+    }
+
+    @Override
+    public StageResult evaluate(DetectionContext context) throws IOException {
+        // 多区域检测需要渲染得到各区域密度，文本层无法回答
+        if (config.isMultiRegionAnalysis()) {
+            return StageResult.continueNext();
+        }
+
+        PDDocument document = context.getDocument();
+        if (document.getNumberOfPages() == 0) {
+            return StageResult.continueNext();
+        }
+
+        long evaluated = evaluatedCount.incrementAndGet();
+        TextLayerGlyphCounter counter = new TextLayerGlyphCounter(config.getTextLayerMinGlyphs(),
+            context.getDeadline());
+        int glyphs;
+        try {
+            glyphs = counter.count(document.getPage(0));
+        } catch (DetectionTimeoutException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            // 文本层解析失败不影响渲染检测
+            logger.debug("文本层解析失败，转为渲染检测: {} - {}", context.getFile().getName(), e.getMessage());
+            return StageResult.continueNext();
+        }
+
+        if (!counter.isTargetReached()) {
+            logger.debug("文本层字形不足 - 文件: {}, 字形数: {}", context.getFile().getName(), glyphs);
+            return StageResult.continueNext();
+        }
+
+        long decided = decidedCount.incrementAndGet();
+        logger.info("文本层快速判定 - 文件: {}, 字形数已达 {}，判定为正常（跳过渲染，累计判定 {}/{}）",
+            context.getFile().getName(), glyphs, decided, evaluated);
+        context.getFileInfo().setDetectionMethod(DetectionMethod.TEXT_LAYER);
+        context.setContentConfirmed(true);
+        return StageResult.normal();
+    }
+
+    /**
+     * 已评估的文件数
+     */
+    public long getEvaluatedCount() {
+        return evaluatedCount.get();
+    }
+
+    /**
+     * 由文本层直接判定的文件数
+     */
+    public long getDecidedCount() {
+        return decidedCount.get();
+    }
+
+    /**
+     * 判定率（由文本层直接判定的文件占已评估文件的比例）
+     */
+    public double getDecisionRate() {
+        long evaluated = evaluatedCount.get();
+        return evaluated == 0 ? 0.0 : (double) decidedCount.get() / evaluated;
+    }
+}
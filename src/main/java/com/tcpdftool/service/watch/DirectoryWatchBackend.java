@@ -0,0 +1,46 @@
+package com.tcpdftool.service.watch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 目录监控实现
+ * 负责把监控目录树中的PDF文件变化转发给监听器；
+ * 只有覆盖全部目录且仍在运行时，定时全量扫描才可以降为兜底扫描
+ */
+public interface DirectoryWatchBackend {
+    
+    /**
+     * 实现名称，用于日志
+     */
+    String getName();
+    
+    /**
+     * 开始监控目录树
+     * @param includeSubdirectories 是否监控子目录
+     */
+    void start(Path root, boolean includeSubdirectories, DirectoryWatchListener listener) throws IOException;
+    
+    /**
+     * 停止监控
+     */
+    void stop();
+    
+    /**
+     * 是否仍在运行且覆盖了监控范围内的全部目录
+     */
+    boolean isWatchingEntireTree();
+    
+    /**
+     * 当前实时监控的目录数，无法统计时返回-1
+     */
+    int getWatchedDirectoryCount();
+    
+    /**
+     * 是否为PDF文件名
+     */
+    static boolean isPdfFile(Path file) {
+        Path fileName = file.getFileName();
+        return fileName != null && fileName.toString().toLowerCase().endsWith(".pdf");
+    }
+}
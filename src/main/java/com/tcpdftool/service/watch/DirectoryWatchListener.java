@@ -0,0 +1,19 @@
+package com.tcpdftool.service.watch;
+
+import java.nio.file.Path;
+
+/**
+ * 目录监控事件回调
+ */
+public interface DirectoryWatchListener {
+    
+    /**
+     * 监控范围内出现或修改了PDF文件，文件可能仍在写入
+     */
+    void onPdfFileChanged(Path file);
+    
+    /**
+     * 事件丢失或监控异常，需要补一次扫描
+     */
+    void onEventsLost();
+}
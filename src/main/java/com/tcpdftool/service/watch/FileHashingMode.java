@@ -0,0 +1,52 @@
+package com.tcpdftool.service.watch;
+
+/**
+ * directory-watcher的事件去重方式
+ * 开启后启动时为目录树中的每个文件计算一次哈希，之后哈希未变化的修改事件被丢弃
+ */
+public enum FileHashingMode {
+    
+    /**
+     * 不计算哈希，所有事件都转发
+     */
+    NONE("不去重"),
+    
+    /**
+     * 按最后修改时间去重，启动时只读取文件属性
+     */
+    LAST_MODIFIED("按修改时间"),
+    
+    /**
+     * 按文件内容哈希去重，启动时需要读取全部文件内容
+     */
+    CONTENT("按文件内容");
+    
+    private final String displayName;
+    
+    FileHashingMode(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * 解析配置值，无法识别时使用NONE
+     */
+    public static FileHashingMode parse(String value) {
+        if (value != null) {
+            for (FileHashingMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value.trim())) {
+                    return mode;
+                }
+            }
+        }
+        return NONE;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
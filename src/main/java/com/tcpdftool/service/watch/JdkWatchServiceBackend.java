@@ -0,0 +1,251 @@
+package com.tcpdftool.service.watch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于JDK WatchService的目录监控
+ * 注册根目录及全部子目录（不含子目录时只注册根目录），之后新建的子目录在创建事件中注册；
+ * 达到目录数上限或系统监控数上限后停止注册，未注册的目录由定时扫描覆盖
+ */
+public class JdkWatchServiceBackend implements DirectoryWatchBackend {
+    
+    private static final Logger logger = LoggerFactory.getLogger(JdkWatchServiceBackend.class);
+    
+    private final int maxWatchedDirectories;
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+    private volatile boolean watchLimitReached;
+    private volatile boolean running;
+    private WatchService watchService;
+    private Thread watchThread;
+    private Path root;
+    private boolean includeSubdirectories;
+    private DirectoryWatchListener listener;
+    
+    /**
+     * @param maxWatchedDirectories 监控目录数上限，<=0不限制
+     */
+    public JdkWatchServiceBackend(int maxWatchedDirectories) {
+        this.maxWatchedDirectories = maxWatchedDirectories;
+    }
+    
+    @Override
+    public String getName() {
+        return WatchBackendType.JDK_WATCH_SERVICE.getDisplayName();
+    }
+    
+    @Override
+    public void start(Path root, boolean includeSubdirectories, DirectoryWatchListener listener) throws IOException {
+        this.root = root;
+        this.includeSubdirectories = includeSubdirectories;
+        this.listener = listener;
+        watchService = FileSystems.getDefault().newWatchService();
+        watchedDirectories.clear();
+        watchLimitReached = false;
+        
+        registerTree(root);
+        
+        running = true;
+        watchThread = new Thread(this::watchForFileChanges, "FileWatcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        
+        logger.info("文件监控已启动（{}），监控目录数: {}{}", getName(), watchedDirectories.size(),
+            watchLimitReached ? "（已达上限，其余目录由定时扫描覆盖）" : "");
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (IOException e) {
+            logger.error("停止文件监控失败", e);
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+        watchedDirectories.clear();
+    }
+    
+    @Override
+    public boolean isWatchingEntireTree() {
+        return running && !watchLimitReached;
+    }
+    
+    @Override
+    public int getWatchedDirectoryCount() {
+        return watchedDirectories.size();
+    }
+    
+    /**
+     * 注册目录树，达到监控上限后停止注册
+     */
+    private void registerTree(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!includeSubdirectories && !dir.equals(root)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return registerDirectory(dir) ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+            }
+            
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                logger.debug("无法访问目录，跳过监控注册: {} - {}", file, e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+    
+    /**
+     * 注册单个目录
+     * @return 是否可以继续注册（未达到目录数上限或系统监控数上限）
+     */
+    private boolean registerDirectory(Path dir) {
+        if (watchLimitReached) {
+            return false;
+        }
+        if (maxWatchedDirectories > 0 && watchedDirectories.size() >= maxWatchedDirectories) {
+            onWatchLimitReached("已达到监控目录数上限 " + maxWatchedDirectories);
+            return false;
+        }
+        try {
+            WatchKey key = dir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+            watchedDirectories.put(key, dir);
+            return true;
+        } catch (NoSuchFileException e) {
+            // 目录在注册前已被删除
+            return true;
+        } catch (IOException e) {
+            // Linux下超出 fs.inotify.max_user_watches 时抛出 "User limit of inotify watches reached"
+            onWatchLimitReached("注册目录监控失败: " + dir + " - " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private void onWatchLimitReached(String reason) {
+        if (!watchLimitReached) {
+            watchLimitReached = true;
+            logger.warn("{}，未注册的目录改由定时扫描发现新文件", reason);
+        }
+    }
+    
+    /**
+     * 监控文件变化
+     */
+    private void watchForFileChanges() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                WatchKey key = watchService.take();
+                Path dir = watchedDirectories.get(key);
+                if (dir == null) {
+                    key.cancel();
+                    continue;
+                }
+                
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    WatchEvent.Kind<?> kind = event.kind();
+                    
+                    if (kind == StandardWatchEventKinds.OVERFLOW) {
+                        // 事件丢失，补一次扫描
+                        logger.warn("文件监控事件溢出，执行补充扫描");
+                        listener.onEventsLost();
+                        continue;
+                    }
+                    
+                    @SuppressWarnings("unchecked")
+                    WatchEvent<Path> ev = (WatchEvent<Path>) event;
+                    Path fullPath = dir.resolve(ev.context());
+                    
+                    if (kind == StandardWatchEventKinds.ENTRY_CREATE && includeSubdirectories
+                            && Files.isDirectory(fullPath, LinkOption.NOFOLLOW_LINKS)) {
+                        handleDirectoryCreated(fullPath);
+                    } else if (kind == StandardWatchEventKinds.ENTRY_CREATE && DirectoryWatchBackend.isPdfFile(fullPath)) {
+                        listener.onPdfFileChanged(fullPath);
+                    }
+                }
+                
+                // 目录已删除或不可访问时监控失效，移除后继续监控其余目录
+                boolean valid = key.reset();
+                if (!valid) {
+                    watchedDirectories.remove(key);
+                    if (watchedDirectories.isEmpty()) {
+                        logger.warn("监控目录已全部失效，停止文件监控");
+                        running = false;
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ClosedWatchServiceException e) {
+                // WatchService已关闭，正常退出监控循环
+                logger.info("文件监控服务已关闭，停止监控");
+                break;
+            } catch (Exception e) {
+                logger.error("文件监控异常", e);
+                // 发生其他异常时，短暂休眠后继续监控
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+    
+    /**
+     * 新建子目录：注册其目录树，并补查注册前已写入的PDF文件
+     */
+    private void handleDirectoryCreated(Path dir) {
+        try {
+            registerTree(dir);
+            logger.debug("新目录已加入监控: {}，监控目录数: {}", dir, watchedDirectories.size());
+        } catch (IOException e) {
+            logger.warn("注册新目录监控失败: {} - {}", dir, e.getMessage());
+        }
+        
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (DirectoryWatchBackend.isPdfFile(file)) {
+                        listener.onPdfFileChanged(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            logger.debug("补查新目录失败: {} - {}", dir, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.tcpdftool.service.watch;
+
+import io.methvin.watcher.DirectoryChangeEvent;
+import io.methvin.watcher.DirectoryChangeListener;
+import io.methvin.watcher.DirectoryWatcher;
+import io.methvin.watcher.hashing.FileHasher;
+import io.methvin.watcher.visitor.FileTreeVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * 基于io.methvin directory-watcher的递归目录监控
+ * 由库负责注册目录树和新建子目录（macOS下使用FSEvents原生递归监控），
+ * 新建子目录中已有的文件同样以创建事件上报；可选按修改时间或文件内容哈希丢弃重复事件。
+ * 逐个注册目录时同样受监控目录数上限约束，达到上限或注册失败（如系统监控数上限）后
+ * 不再视为覆盖全部目录，未注册的目录由定时扫描覆盖
+ */
+public class MethvinWatchBackend implements DirectoryWatchBackend {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MethvinWatchBackend.class);
+    
+    private final FileHashingMode hashingMode;
+    private final int maxWatchedDirectories;
+    private final Set<Path> watchedDirectories = ConcurrentHashMap.newKeySet();
+    private DirectoryWatcher watcher;
+    private ExecutorService watchExecutor;
+    private DirectoryWatchListener listener;
+    private volatile boolean watchLimitReached;
+    private volatile boolean registered;
+    private volatile boolean running;
+    
+    /**
+     * @param maxWatchedDirectories 逐个注册时的监控目录数上限，<=0不限制（macOS原生递归监控不逐个注册）
+     */
+    public MethvinWatchBackend(FileHashingMode hashingMode, int maxWatchedDirectories) {
+        this.hashingMode = hashingMode;
+        this.maxWatchedDirectories = maxWatchedDirectories;
+    }
+    
+    @Override
+    public String getName() {
+        return WatchBackendType.DIRECTORY_WATCHER.getDisplayName();
+    }
+    
+    @Override
+    public void start(Path root, boolean includeSubdirectories, DirectoryWatchListener listener) throws IOException {
+        this.listener = listener;
+        watchedDirectories.clear();
+        watchLimitReached = false;
+        registered = false;
+        DirectoryWatcher.Builder builder = DirectoryWatcher.builder()
+            .path(root)
+            .listener(new DirectoryChangeListener() {
+                @Override
+                public void onEvent(DirectoryChangeEvent event) {
+                    handleEvent(event, root, includeSubdirectories, listener);
+                }
+                
+                @Override
+                public void onException(Exception e) {
+                    // 运行中注册新目录失败（如超出系统监控数上限）时库只回调异常，该目录之后不再有事件
+                    onWatchLimitReached("文件监控异常: " + e.getMessage());
+                }
+            })
+            .logger(logger);
+        
+        switch (hashingMode) {
+            case LAST_MODIFIED:
+                builder.fileHasher(FileHasher.LAST_MODIFIED_TIME);
+                break;
+            case CONTENT:
+                builder.fileHasher(FileHasher.DEFAULT_FILE_HASHER);
+                break;
+            case NONE:
+            default:
+                builder.fileHashing(false);
+                break;
+        }
+        FileTreeVisitor visitor = includeSubdirectories
+            ? FileTreeVisitor.DEFAULT_FILE_TREE_VISITOR
+            : rootOnlyVisitor(root);
+        builder.fileTreeVisitor(limitedVisitor(visitor));
+        
+        long startTime = System.currentTimeMillis();
+        // 构建时注册整个目录树，开启哈希时同时计算全部文件的哈希
+        watcher = builder.build();
+        
+        watchExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "FileWatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        // 启动监控循环前同步注册目录树
+        watcher.watchAsync(watchExecutor).whenComplete((result, error) -> {
+            boolean unexpected = running;
+            running = false;
+            if (unexpected) {
+                // 监控意外结束，之后依靠定时扫描
+                logger.warn("文件监控已停止{}", error != null ? ": " + error.getMessage() : "");
+                listener.onEventsLost();
+            }
+        });
+        
+        registered = true;
+        
+        logger.info("文件监控已启动（{}，{}），注册耗时: {}ms{}", getName(), hashingMode.getDisplayName(),
+            System.currentTimeMillis() - startTime,
+            watchLimitReached ? "（未覆盖全部目录，其余目录由定时扫描覆盖）" : "");
+    }
+    
+    private void handleEvent(DirectoryChangeEvent event, Path root, boolean includeSubdirectories,
+                             DirectoryWatchListener listener) {
+        switch (event.eventType()) {
+            case OVERFLOW:
+                logger.warn("文件监控事件溢出，执行补充扫描");
+                listener.onEventsLost();
+                break;
+            case CREATE:
+            case MODIFY:
+                // macOS下新建文件可能只产生修改事件，两类事件都转发，由扫描器按已知文件去重
+                Path path = event.path();
+                if (event.isDirectory() || !DirectoryWatchBackend.isPdfFile(path)) {
+                    return;
+                }
+                if (!includeSubdirectories && !root.equals(path.getParent())) {
+                    return;
+                }
+                listener.onPdfFileChanged(path);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * 包装目录遍历：库建立初始目录状态和注册监控时各遍历一次目录树，
+     * 按目录去重计数，达到上限或注册失败后跳过新目录，已计入的目录照常回调
+     */
+    private FileTreeVisitor limitedVisitor(FileTreeVisitor delegate) {
+        return (start, onDirectory, onFile) -> delegate.recursiveVisitFiles(start, dir -> {
+            if (!watchedDirectories.contains(dir)) {
+                if (watchLimitReached) {
+                    return;
+                }
+                if (maxWatchedDirectories > 0 && watchedDirectories.size() >= maxWatchedDirectories) {
+                    onWatchLimitReached("已达到监控目录数上限 " + maxWatchedDirectories);
+                    return;
+                }
+            }
+            try {
+                onDirectory.call(dir);
+                watchedDirectories.add(dir);
+            } catch (IOException e) {
+                // Linux下超出 fs.inotify.max_user_watches 时抛出 "User limit of inotify watches reached"
+                onWatchLimitReached("注册目录监控失败: " + dir + " - " + e.getMessage());
+            }
+        }, onFile);
+    }
+    
+    /**
+     * 不再覆盖全部目录：记录原因，启动后发生时补一次扫描，之后恢复正常的定时扫描间隔
+     */
+    private void onWatchLimitReached(String reason) {
+        if (watchLimitReached) {
+            logger.debug(reason);
+            return;
+        }
+        watchLimitReached = true;
+        logger.warn("{}，未注册的目录改由定时扫描发现新文件", reason);
+        if (registered && running && listener != null) {
+            listener.onEventsLost();
+        }
+    }
+    
+    /**
+     * 不含子目录时只注册根目录，新建的子目录也不注册
+     */
+    private static FileTreeVisitor rootOnlyVisitor(Path root) {
+        return (start, onDirectory, onFile) -> {
+            if (!start.equals(root)) {
+                return;
+            }
+            onDirectory.call(root);
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(root)) {
+                for (Path child : children) {
+                    if (Files.isRegularFile(child, LinkOption.NOFOLLOW_LINKS)) {
+                        onFile.call(child);
+                    }
+                }
+            }
+        };
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            if (watcher != null) {
+                watcher.close();
+            }
+        } catch (IOException e) {
+            logger.error("停止文件监控失败", e);
+        }
+        if (watchExecutor != null) {
+            watchExecutor.shutdownNow();
+        }
+    }
+    
+    @Override
+    public boolean isWatchingEntireTree() {
+        return running && !watchLimitReached;
+    }
+    
+    @Override
+    public int getWatchedDirectoryCount() {
+        // macOS原生递归监控只注册根目录，不经过逐个注册；已删除的目录不扣除
+        int count = watchedDirectories.size();
+        return count > 0 ? count : -1;
+    }
+}
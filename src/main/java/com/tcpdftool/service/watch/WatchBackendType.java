@@ -0,0 +1,63 @@
+package com.tcpdftool.service.watch;
+
+import com.tcpdftool.config.AppConfig;
+
+/**
+ * 文件监控实现类型
+ */
+public enum WatchBackendType {
+    
+    /**
+     * JDK WatchService，逐个注册目录，受监控目录数上限约束
+     */
+    JDK_WATCH_SERVICE("JDK WatchService"),
+    
+    /**
+     * io.methvin directory-watcher，递归监控（macOS下使用FSEvents），支持文件哈希去重；
+     * 逐个注册目录时同样受监控目录数上限约束
+     */
+    DIRECTORY_WATCHER("directory-watcher");
+    
+    private final String displayName;
+    
+    WatchBackendType(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * 按配置创建监控实现
+     */
+    public DirectoryWatchBackend createBackend(AppConfig config) {
+        switch (this) {
+            case JDK_WATCH_SERVICE:
+                return new JdkWatchServiceBackend(config.getMaxWatchedDirectories());
+            case DIRECTORY_WATCHER:
+            default:
+                return new MethvinWatchBackend(FileHashingMode.parse(config.getWatchFileHashing()),
+                    config.getMaxWatchedDirectories());
+        }
+    }
+    
+    /**
+     * 解析配置值，无法识别时使用DIRECTORY_WATCHER
+     */
+    public static WatchBackendType parse(String value) {
+        if (value != null) {
+            for (WatchBackendType type : values()) {
+                if (type.name().equalsIgnoreCase(value.trim())) {
+                    return type;
+                }
+            }
+        }
+        return DIRECTORY_WATCHER;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
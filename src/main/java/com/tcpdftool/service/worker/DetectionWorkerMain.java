@@ -0,0 +1,112 @@
+package com.tcpdftool.service.worker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcpdftool.config.AppConfig;
+import com.tcpdftool.model.DetectionResult;
+import com.tcpdftool.model.PDFFileInfo;
+import com.tcpdftool.service.PDFDetector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * 检测工作进程入口（子JVM）
+ * 从stdin读取检测请求，在本进程内检测后把结果写回stdout；
+ * 日志输出改到stderr，避免污染协议流
+ */
+public class DetectionWorkerMain {
+    
+    /**
+     * 内存不足时的退出码，父进程据此记录并重启工作进程
+     */
+    static final int EXIT_OUT_OF_MEMORY = 3;
+    
+    public static void main(String[] args) {
+        // 先接管stdout再初始化日志，之后所有控制台输出都走stderr
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        System.setOut(System.err);
+        DataInputStream in = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        
+        Logger logger = LoggerFactory.getLogger(DetectionWorkerMain.class);
+        PDFDetector detector = null;
+        try {
+            WorkerProtocol.Frame configFrame = WorkerProtocol.readFrame(in);
+            if (configFrame.getType() != WorkerProtocol.CONFIG) {
+                logger.error("检测工作进程未收到配置帧，退出");
+                System.exit(2);
+            }
+            detector = new PDFDetector(toWorkerConfig(
+                new ObjectMapper().readValue(configFrame.getPayload(), AppConfig.class)));
+            detector.warmUp().join();
+            logger.info("检测工作进程已就绪");
+            
+            while (true) {
+                WorkerProtocol.Frame frame = WorkerProtocol.readFrame(in);
+                if (frame.getType() == WorkerProtocol.SHUTDOWN) {
+                    break;
+                }
+                if (frame.getType() != WorkerProtocol.DETECT) {
+                    logger.warn("忽略未知协议帧类型: {}", frame.getType());
+                    continue;
+                }
+                
+                DataInputStream request = frame.payloadStream();
+                String fileName = request.readUTF();
+                String filePath = request.readUTF();
+                long fileSize = request.readLong();
+                long lastModified = request.readLong();
+                PDFFileInfo fileInfo = new PDFFileInfo(fileName, filePath, fileSize, new Date(lastModified));
+                
+                DetectionResult result;
+                try {
+                    result = detector.detectPDF(fileInfo);
+                } catch (OutOfMemoryError e) {
+                    writeResult(out, DetectionResult.DETECTION_FAILED, fileInfo, "检测进程内存不足");
+                    System.exit(EXIT_OUT_OF_MEMORY);
+                    return;
+                }
+                writeResult(out, result, fileInfo, fileInfo.getErrorMessage());
+            }
+        } catch (EOFException e) {
+            // 父进程已关闭管道，正常退出
+        } catch (IOException e) {
+            logger.error("检测工作进程通信失败", e);
+        } finally {
+            if (detector != null) {
+                detector.shutdown();
+            }
+        }
+        System.exit(0);
+    }
+    
+    /**
+     * 子进程内的检测配置：关闭缓存（由父进程统一维护）、单线程、不再派生子进程
+     */
+    private static AppConfig toWorkerConfig(AppConfig config) {
+        config.setEnableDetectionCache(false);
+        config.setEnableProcessIsolation(false);
+        config.setDetectionThreads(1);
+        config.setDetectionQueueCapacity(1);
+        return config;
+    }
+    
+    private static void writeResult(DataOutputStream out, DetectionResult result, PDFFileInfo fileInfo,
+                                    String errorMessage) throws IOException {
+        String method = fileInfo.getDetectionMethod() == null ? null : fileInfo.getDetectionMethod().name();
+        WorkerProtocol.writeFrame(out, WorkerProtocol.RESULT,
+            WorkerProtocol.encodeResult(result.name(), method, errorMessage, fileInfo.getStageTimings(),
+                fileInfo.getRegionDensities(), fileInfo.getLuminanceHistogram()));
+    }
+}
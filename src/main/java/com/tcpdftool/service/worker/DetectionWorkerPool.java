@@ -0,0 +1,315 @@
+package com.tcpdftool.service.worker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tcpdftool.config.AppConfig;
+import com.tcpdftool.model.DetectionMethod;
+import com.tcpdftool.model.DetectionResult;
+import com.tcpdftool.model.PDFFileInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 检测工作进程池（父进程侧）
+ * 把检测交给常驻子JVM执行，渲染导致的内存溢出或崩溃只影响子进程；
+ * 子进程处理一定数量文件后回收重建，异常退出时下次使用前自动重启，
+ * 超出检测时限仍未返回的子进程被强制结束
+ */
+public class DetectionWorkerPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(DetectionWorkerPool.class);
+
+    /**
+     * 子进程自身时限之外，父进程额外等待的时间（含子进程加载文件的开销）
+     */
+    private static final long KILL_GRACE_SECONDS = 30;
+
+    private final AppConfig config;
+    private final byte[] configPayload;
+    private final BlockingQueue<WorkerSlot> idleSlots;
+    private final List<WorkerSlot> allSlots;
+    private final ScheduledExecutorService watchdog;
+    private final AtomicLong restartCount = new AtomicLong();
+    private volatile boolean closed;
+
+    public DetectionWorkerPool(AppConfig config) throws IOException {
+        this.config = config;
+        this.configPayload = new ObjectMapper().writeValueAsBytes(config);
+        this.idleSlots = new LinkedBlockingQueue<>();
+        this.allSlots = new ArrayList<>();
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "DetectionWorkerWatchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        int workers = config.getEffectiveWorkerProcesses();
+        for (int i = 1; i <= workers; i++) {
+            WorkerSlot slot = new WorkerSlot(i);
+            allSlots.add(slot);
+            idleSlots.add(slot);
+        }
+        logger.info("检测工作进程池已创建 - 进程数: {}, 单进程堆上限: {}MB, 回收周期: {} 个文件",
+            workers, config.getWorkerMaxHeapMB(), config.getWorkerRecycleAfterFiles());
+    }
+
+    /**
+     * 在工作进程中检测文件，阻塞直到有空闲进程并返回结果
+     */
+    public DetectionResult detect(PDFFileInfo fileInfo) {
+        WorkerSlot slot;
+        try {
+            slot = idleSlots.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fileInfo.setErrorMessage("检测已取消");
+            return DetectionResult.DETECTION_FAILED;
+        }
+
+        try {
+            return slot.detect(fileInfo);
+        } finally {
+            if (closed) {
+                slot.stop();
+            } else {
+                idleSlots.add(slot);
+            }
+        }
+    }
+
+    /**
+     * 工作进程重启次数（异常退出或超时被结束）
+     */
+    public long getRestartCount() {
+        return restartCount.get();
+    }
+
+    /**
+     * 关闭全部工作进程；正在检测的进程在当前文件完成后关闭
+     */
+    public void shutdown() {
+        closed = true;
+        for (WorkerSlot slot : allSlots) {
+            if (idleSlots.remove(slot)) {
+                slot.stop();
+            }
+        }
+        watchdog.shutdownNow();
+        logger.info("检测工作进程池已关闭，累计重启 {} 次", restartCount.get());
+    }
+
+    /**
+     * 工作进程位：同一时刻只处理一个文件，进程按需启动
+     */
+    private class WorkerSlot {
+        private final int index;
+        private Process process;
+        private DataOutputStream out;
+        private DataInputStream in;
+        private int handledFiles;
+        private volatile boolean killedByWatchdog;
+
+        WorkerSlot(int index) {
+            this.index = index;
+        }
+
+        synchronized DetectionResult detect(PDFFileInfo fileInfo) {
+            byte[] request;
+            try {
+                request = WorkerProtocol.encodeRequest(fileInfo.getFileName(), fileInfo.getFilePath(),
+                    fileInfo.getFileSize(), new File(fileInfo.getFilePath()).lastModified());
+            } catch (IOException e) {
+                fileInfo.setErrorMessage("检测请求编码失败: " + e.getMessage());
+                return DetectionResult.DETECTION_FAILED;
+            }
+
+            // 发送失败说明进程在空闲期间已退出，重启后重试一次
+            if (!sendRequest(request)) {
+                discard("发送请求失败");
+                if (!sendRequest(request)) {
+                    discard("发送请求失败");
+                    fileInfo.setErrorMessage("无法启动检测进程");
+                    return DetectionResult.DETECTION_FAILED;
+                }
+            }
+
+            killedByWatchdog = false;
+            ScheduledFuture<?> kill = scheduleKill(fileInfo);
+            try {
+                WorkerProtocol.Frame frame = WorkerProtocol.readFrame(in);
+                if (frame.getType() != WorkerProtocol.RESULT) {
+                    throw new IOException("意外的协议帧类型: " + frame.getType());
+                }
+                DetectionResult result = applyResult(frame, fileInfo);
+                handledFiles++;
+                if (handledFiles >= Math.max(1, config.getWorkerRecycleAfterFiles())) {
+                    logger.debug("检测工作进程 #{} 已处理 {} 个文件，回收重建", index, handledFiles);
+                    stop();
+                }
+                return result;
+            } catch (IOException e) {
+                if (killedByWatchdog) {
+                    discard("超出检测时限");
+                    fileInfo.setErrorMessage("检测超时，检测进程已被结束");
+                    return DetectionResult.TIMEOUT;
+                }
+                String exitText = describeExit();
+                discard("通信中断");
+                logger.error("检测工作进程 #{} 异常退出（{}），文件: {}", index, exitText, fileInfo.getFileName());
+                fileInfo.setErrorMessage("检测进程异常退出（" + exitText + "）");
+                return DetectionResult.DETECTION_FAILED;
+            } finally {
+                if (kill != null) {
+                    kill.cancel(false);
+                }
+            }
+        }
+
+        /**
+         * 确保进程已启动并发送请求
+         */
+        private boolean sendRequest(byte[] request) {
+            try {
+                if (process != null && !process.isAlive()) {
+                    discard("进程已退出");
+                }
+                if (process == null) {
+                    start();
+                }
+                WorkerProtocol.writeFrame(out, WorkerProtocol.DETECT, request);
+                return true;
+            } catch (IOException e) {
+                logger.warn("检测工作进程 #{} 请求发送失败: {}", index, e.getMessage());
+                return false;
+            }
+        }
+
+        private void start() throws IOException {
+            List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            command.add("-Xmx" + config.getWorkerMaxHeapMB() + "m");
+            command.add("-Dfile.encoding=UTF-8");
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(DetectionWorkerMain.class.getName());
+
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            process = builder.start();
+            out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+            handledFiles = 0;
+            WorkerProtocol.writeFrame(out, WorkerProtocol.CONFIG, configPayload);
+            logger.info("检测工作进程 #{} 已启动", index);
+        }
+
+        /**
+         * 超出时限后强制结束子进程，阻塞中的读取随之返回EOF
+         */
+        private ScheduledFuture<?> scheduleKill(PDFFileInfo fileInfo) {
+            int timeoutSeconds = config.getDetectionTimeoutSeconds();
+            if (timeoutSeconds <= 0) {
+                return null;
+            }
+            Process target = process;
+            return watchdog.schedule(() -> {
+                killedByWatchdog = true;
+                logger.warn("检测工作进程 #{} 超出检测时限，强制结束: {}", index, fileInfo.getFileName());
+                target.destroyForcibly();
+            }, timeoutSeconds + KILL_GRACE_SECONDS, TimeUnit.SECONDS);
+        }
+
+        private DetectionResult applyResult(WorkerProtocol.Frame frame, PDFFileInfo fileInfo) throws IOException {
+            DataInputStream payload = frame.payloadStream();
+            DetectionResult result = DetectionResult.valueOf(payload.readUTF());
+            String method = payload.readUTF();
+            String errorMessage = payload.readUTF();
+            fileInfo.setDetectionMethod(method.isEmpty() ? null : DetectionMethod.valueOf(method));
+            if (!errorMessage.isEmpty()) {
+                fileInfo.setErrorMessage(errorMessage);
+            }
+            fileInfo.clearStageTimings();
+            int timingCount = payload.readInt();
+            for (int i = 0; i < timingCount; i++) {
+                fileInfo.addStageTiming(payload.readUTF(), payload.readLong());
+            }
+            fileInfo.clearRegionAnalysis();
+            int regionCount = payload.readInt();
+            for (int i = 0; i < regionCount; i++) {
+                fileInfo.putRegionDensity(payload.readUTF(), payload.readDouble());
+            }
+            int histogramLength = payload.readInt();
+            if (histogramLength >= 0) {
+                int[] histogram = new int[histogramLength];
+                for (int i = 0; i < histogramLength; i++) {
+                    histogram[i] = payload.readInt();
+                }
+                fileInfo.setLuminanceHistogram(histogram);
+            }
+            return result;
+        }
+
+        private String describeExit() {
+            if (process == null) {
+                return "未启动";
+            }
+            try {
+                if (process.waitFor(2, TimeUnit.SECONDS)) {
+                    int exitCode = process.exitValue();
+                    return exitCode == DetectionWorkerMain.EXIT_OUT_OF_MEMORY ? "内存不足" : "退出码 " + exitCode;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "无响应";
+        }
+
+        /**
+         * 正常停止：通知子进程退出
+         */
+        synchronized void stop() {
+            if (process == null) {
+                return;
+            }
+            try {
+                WorkerProtocol.writeFrame(out, WorkerProtocol.SHUTDOWN, new byte[0]);
+                out.close();
+            } catch (IOException e) {
+                process.destroyForcibly();
+            }
+            process = null;
+            out = null;
+            in = null;
+        }
+
+        /**
+         * 丢弃异常进程，下次使用时重新启动
+         */
+        private void discard(String reason) {
+            if (process == null) {
+                return;
+            }
+            restartCount.incrementAndGet();
+            logger.warn("丢弃检测工作进程 #{}: {}", index, reason);
+            process.destroyForcibly();
+            process = null;
+            out = null;
+            in = null;
+        }
+    }
+}
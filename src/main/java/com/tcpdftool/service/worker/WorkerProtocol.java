@@ -0,0 +1,136 @@
+package com.tcpdftool.service.worker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 检测工作进程通信协议
+ * 通过子进程的stdin/stdout传输，每帧为 4字节长度 + 1字节类型 + 负载：
+ * CONFIG（父→子，AppConfig的JSON）、DETECT（父→子，文件名/路径/大小/修改时间）、
+ * RESULT（子→父，检测结果/判定方式/错误信息/阶段耗时）、SHUTDOWN（父→子，处理完当前文件后退出）
+ */
+public final class WorkerProtocol {
+    
+    public static final byte CONFIG = 1;
+    public static final byte DETECT = 2;
+    public static final byte RESULT = 3;
+    public static final byte SHUTDOWN = 4;
+    
+    /**
+     * 单帧上限，防止异常输出被当作超长帧读取
+     */
+    private static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+    
+    private WorkerProtocol() {
+    }
+    
+    /**
+     * 写出一帧
+     */
+    public static void writeFrame(DataOutputStream out, byte type, byte[] payload) throws IOException {
+        out.writeInt(payload.length + 1);
+        out.writeByte(type);
+        out.write(payload);
+        out.flush();
+    }
+    
+    /**
+     * 读取一帧，返回类型 + 负载；对端关闭时抛出EOFException
+     */
+    public static Frame readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 1 || length > MAX_FRAME_BYTES) {
+            throw new IOException("无效的帧长度: " + length);
+        }
+        byte type = in.readByte();
+        byte[] payload = new byte[length - 1];
+        in.readFully(payload);
+        return new Frame(type, payload);
+    }
+    
+    /**
+     * 编码检测请求
+     */
+    public static byte[] encodeRequest(String fileName, String filePath, long fileSize, long lastModified)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(fileName);
+        out.writeUTF(filePath);
+        out.writeLong(fileSize);
+        out.writeLong(lastModified);
+        out.flush();
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * 编码检测结果，null字段写为空字符串，其后依次为各阶段耗时（数量 + 名称/纳秒）、
+     * 区域密度（数量 + 名称/百分比）和亮度直方图（长度 + 计数，未统计时长度为-1）
+     */
+    public static byte[] encodeResult(String result, String method, String errorMessage,
+                                      Map<String, Long> stageTimings, Map<String, Double> regionDensities,
+                                      int[] luminanceHistogram) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(result);
+        out.writeUTF(method == null ? "" : method);
+        out.writeUTF(errorMessage == null ? "" : truncate(errorMessage));
+        out.writeInt(stageTimings.size());
+        for (Map.Entry<String, Long> timing : stageTimings.entrySet()) {
+            out.writeUTF(timing.getKey());
+            out.writeLong(timing.getValue());
+        }
+        out.writeInt(regionDensities.size());
+        for (Map.Entry<String, Double> density : regionDensities.entrySet()) {
+            out.writeUTF(density.getKey());
+            out.writeDouble(density.getValue());
+        }
+        out.writeInt(luminanceHistogram == null ? -1 : luminanceHistogram.length);
+        if (luminanceHistogram != null) {
+            for (int count : luminanceHistogram) {
+                out.writeInt(count);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * writeUTF 上限为65535字节，错误信息过长时截断
+     */
+    private static String truncate(String text) {
+        return text.length() > 8000 ? text.substring(0, 8000) : text;
+    }
+    
+    /**
+     * 协议帧
+     */
+    public static class Frame {
+        private final byte type;
+        private final byte[] payload;
+        
+        Frame(byte type, byte[] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+        
+        public byte getType() {
+            return type;
+        }
+        
+        public byte[] getPayload() {
+            return payload;
+        }
+        
+        /**
+         * 以数据流方式读取负载
+         */
+        public DataInputStream payloadStream() {
+            return new DataInputStream(new ByteArrayInputStream(payload));
+        }
+    }
+}
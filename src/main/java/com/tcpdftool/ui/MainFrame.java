@@ -3,10 +3,14 @@ package com.tcpdftool.ui;
 import com.tcpdftool.config.AppConfig;
 import com.tcpdftool.config.ConfigManager;
 import com.tcpdftool.model.PDFFileInfo;
+import com.tcpdftool.service.BatchResult;
+import com.tcpdftool.service.DetectionPriority;
 import com.tcpdftool.service.FileScanner;
 import com.tcpdftool.service.NotificationService;
 import com.tcpdftool.service.PDFDetector;
 import com.tcpdftool.service.ReconversionService;
+import com.tcpdftool.service.ScanDiscoveryListener;
+import com.tcpdftool.service.ScanSummary;
 import com.tcpdftool.util.SystemUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +29,7 @@ import java.awt.event.WindowEvent;
 import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -58,11 +63,6 @@ public class MainFrame extends JFrame {
     // 状态变量
     private boolean isRunning = false;
     
-    // 批量通知相关状态
-    private final List<PDFFileInfo> currentScanSuspiciousFiles = new ArrayList<>();
-    private int pendingDetections = 0;
-    private int totalFilesInCurrentScan = 0;
-    
     public MainFrame(ConfigManager configManager) {
         this.configManager = configManager;
         
@@ -82,6 +82,12 @@ public class MainFrame extends JFrame {
         // 设置窗口属性
         setupWindow();
         
+        // 后台预热检测器，配置了自动开始监控时在预热结束后开始，避免初始扫描的首批文件承担冷启动开销
+        CompletableFuture<Void> warmUp = pdfDetector.warmUp();
+        if (config.isAutoStartMonitoring()) {
+            warmUp.thenRun(() -> SwingUtilities.invokeLater(this::startMonitoring));
+        }
+        
         logger.info("主界面初始化完成");
     }
     
@@ -107,41 +113,19 @@ public class MainFrame extends JFrame {
         
         appendLog("开始重新检测所有文件...");
         
-        // 清空当前文件列表和可疑文件列表
+        // 重新检测不使用已缓存的结论
+        pdfDetector.clearDetectionCache();
+        
+        // 清空当前文件列表
         tableModel.setRowCount(0);
-        currentScanSuspiciousFiles.clear();
-        pendingDetections = 0;
-        totalFilesInCurrentScan = 0;
         updateFileCount();
         
         // 创建临时扫描器进行重新扫描
         FileScanner tempScanner = new FileScanner(config);
-        tempScanner.setOnScanCompleted(files -> {
-            SwingUtilities.invokeLater(() -> {
-                totalFilesInCurrentScan = files.size();
-                pendingDetections = files.size();
-                
-                for (PDFFileInfo fileInfo : files) {
-                    addFileToTable(fileInfo);
-                    // 异步检测每个文件
-                    pdfDetector.detectAsync(fileInfo);
-                }
-                updateFileCount();
-                appendLog("重新扫描完成，发现 " + files.size() + " 个PDF文件，正在重新检测...");
-            });
-        });
+        tempScanner.setDiscoveryListener(createDiscoveryListener("重新扫描完成，发现 %d 个PDF文件，正在重新检测..."));
         
-        // 异步执行扫描
-        CompletableFuture.runAsync(() -> {
-            tempScanner.startScanning();
-            try {
-                Thread.sleep(2000); // 等待扫描完成
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            } finally {
-                tempScanner.stopScanning();
-            }
-        });
+        // 异步执行一次扫描，不注册文件监控
+        CompletableFuture.runAsync(tempScanner::scanOnce);
     }
     
     /**
@@ -389,7 +373,10 @@ public class MainFrame extends JFrame {
     private void setupServiceCallbacks() {
         // 文件扫描回调
         fileScanner.setOnNewFileFound(this::onNewFileFound);
-        fileScanner.setOnScanCompleted(this::onScanCompleted);
+        fileScanner.setOnNewFilesScanned(this::onNewFilesScanned);
+        fileScanner.setDiscoveryListener(createDiscoveryListener("扫描完成，发现 %d 个PDF文件"));
+        // 检测队列已满时暂缓定时扫描
+        fileScanner.setBackpressureSignal(() -> pdfDetector.isQueueSaturated());
         
         // PDF检测回调
         pdfDetector.setOnDetectionCompleted(this::onDetectionCompleted);
@@ -508,8 +495,8 @@ public class MainFrame extends JFrame {
         tableModel.setRowCount(0);
         fileCountLabel.setText("文件数量: 0");
         
-        // 启动文件扫描
-        fileScanner.startScanning();
+        // 启动文件扫描：首次遍历和监控注册耗时较长，放到后台线程执行，流式发现的批次才能及时显示
+        CompletableFuture.runAsync(fileScanner::startScanning);
         
         appendLog("开始监控目录: " + monitorDir);
         logger.info("开始监控目录: {}", monitorDir);
@@ -556,39 +543,15 @@ public class MainFrame extends JFrame {
             return;
         }
         
-        // 刷新前重置本轮会话状态，避免使用上一轮的可疑列表导致误发短信
-        currentScanSuspiciousFiles.clear();
-        pendingDetections = 0;
-        totalFilesInCurrentScan = 0;
         appendLog("正在刷新文件列表并重新检测...");
         
-        // 临时启动扫描获取文件列表
+        // 临时扫描一次获取文件列表
+        tableModel.setRowCount(0);
+        updateFileCount();
         FileScanner tempScanner = new FileScanner(config);
-        tempScanner.setOnScanCompleted(files -> {
-            SwingUtilities.invokeLater(() -> {
-                tableModel.setRowCount(0);
-                for (PDFFileInfo fileInfo : files) {
-                    addFileToTable(fileInfo);
-                    // 异步检测
-                    pdfDetector.detectAsync(fileInfo);
-                }
-                // 建立刷新会话的统计信息（用于批量通知消息体）
-                totalFilesInCurrentScan = files.size();
-                pendingDetections = files.size();
-                updateFileCount();
-                appendLog("刷新完成，发现 " + files.size() + " 个PDF文件，正在检测...");
-            });
-        });
+        tempScanner.setDiscoveryListener(createDiscoveryListener("刷新完成，发现 %d 个PDF文件，正在检测..."));
         
-        CompletableFuture.runAsync(() -> {
-            tempScanner.startScanning();
-            try {
-                Thread.sleep(2000); // 等待扫描完成
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            tempScanner.stopScanning();
-        });
+        CompletableFuture.runAsync(tempScanner::scanOnce);
     }
     
     /**
@@ -668,94 +631,131 @@ public class MainFrame extends JFrame {
      */
     private void onNewFileFound(PDFFileInfo fileInfo) {
         SwingUtilities.invokeLater(() -> {
-            // 为新文件检测建立独立会话，避免沿用上一轮状态导致误发通知
-            currentScanSuspiciousFiles.clear();
-            pendingDetections = 1;
-            totalFilesInCurrentScan = 1;
-            
             addFileToTable(fileInfo);
             updateFileCount();
             appendLog("发现新文件: " + fileInfo.getFileName());
             
-            // 异步检测
-            pdfDetector.detectAsync(fileInfo);
+            // 实时文件优先检测，插队到积压文件之前，单独作为一批通知
+            detectBatch(Collections.singletonList(fileInfo), DetectionPriority.LIVE);
         });
     }
     
     /**
-     * 扫描完成回调
+     * 定时扫描发现新文件回调
+     * 扫描可能一次发现大量文件（如兜底扫描、网络盘恢复后），按积压文件整批提交，受检测队列容量约束
      */
-    private void onScanCompleted(List<PDFFileInfo> files) {
+    private void onNewFilesScanned(List<PDFFileInfo> files) {
         SwingUtilities.invokeLater(() -> {
-            logger.info("UI收到扫描完成回调，文件数量: {}", files.size());
-            
-            // 重置批量通知相关状态
-            currentScanSuspiciousFiles.clear();
-            pendingDetections = files.size();
-            totalFilesInCurrentScan = files.size(); // 记录总文件数
-            
             for (PDFFileInfo fileInfo : files) {
-                logger.info("添加文件到表格: {}", fileInfo.getFileName());
                 addFileToTable(fileInfo);
-                // 异步检测
-                pdfDetector.detectAsync(fileInfo);
             }
             updateFileCount();
-            appendLog("扫描完成，发现 " + files.size() + " 个PDF文件");
-            logger.info("UI更新完成");
+            appendLog("定时扫描发现 " + files.size() + " 个新文件");
+            
+            detectBatch(files, DetectionPriority.BACKLOG);
         });
     }
     
     /**
-     * 检测完成回调
+     * 创建流式发现回调
+     * 每批文件发现后立即加入表格并提交检测，扫描结束且各批检测完成后合并为一批统一通知
+     * @param finishedMessage 扫描结束时的日志，%d 为文件总数
      */
-    private void onDetectionCompleted(PDFFileInfo fileInfo) {
-        SwingUtilities.invokeLater(() -> {
-            updateFileInTable(fileInfo);
-            
-            // 减少待检测计数
-            pendingDetections--;
-            
-            if (fileInfo.isSuspiciousEmpty()) {
-                appendLog("检测到疑似空文件: " + fileInfo.getFileName());
-                // 收集疑似空文件，不立即发送通知
-                currentScanSuspiciousFiles.add(fileInfo);
+    private ScanDiscoveryListener createDiscoveryListener(String finishedMessage) {
+        // 只在事件派发线程中访问
+        List<CompletableFuture<BatchResult>> parts = new ArrayList<>();
+        long start = System.nanoTime();
+        return new ScanDiscoveryListener() {
+            @Override
+            public void onFilesDiscovered(List<PDFFileInfo> files) {
+                SwingUtilities.invokeLater(() -> {
+                    for (PDFFileInfo fileInfo : files) {
+                        addFileToTable(fileInfo);
+                    }
+                    updateFileCount();
+                    parts.add(submitBatch(files, DetectionPriority.BACKLOG));
+                });
             }
             
-            // 如果所有文件都检测完成，统一发送通知
-            if (pendingDetections <= 0) {
-                sendBatchNotifications();
+            @Override
+            public void onScanFinished(ScanSummary summary) {
+                SwingUtilities.invokeLater(() -> {
+                    logger.info("UI收到扫描结束回调 - {}", summary);
+                    appendLog(String.format(finishedMessage, summary.getTotalFiles()));
+                    CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+                        List<BatchResult> results = new ArrayList<>();
+                        for (CompletableFuture<BatchResult> part : parts) {
+                            results.add(part.join());
+                        }
+                        BatchResult batch = BatchResult.combine(results, (System.nanoTime() - start) / 1_000_000);
+                        SwingUtilities.invokeLater(() -> onBatchCompleted(batch));
+                    });
+                });
+            }
+        };
+    }
+    
+    /**
+     * 批量检测，每批完成后统一发送一次通知
+     * 每批的疑似空列表和总数都来自本批结果，多批并行时互不干扰
+     */
+    private void detectBatch(List<PDFFileInfo> files, DetectionPriority priority) {
+        submitBatch(files, priority).thenAccept(batch -> SwingUtilities.invokeLater(() -> onBatchCompleted(batch)));
+    }
+    
+    /**
+     * 提交批量检测，疑似空文件在检测完成时即写入日志
+     */
+    private CompletableFuture<BatchResult> submitBatch(List<PDFFileInfo> files, DetectionPriority priority) {
+        return pdfDetector.detectAll(files, priority, (fileInfo, completed, total) -> {
+            if (fileInfo.isSuspiciousEmpty()) {
+                SwingUtilities.invokeLater(() -> appendLog("检测到疑似空文件: " + fileInfo.getFileName()));
             }
         });
     }
     
+    /**
+     * 检测完成回调（重新转换状态变化时也会触发，仅用于刷新表格）
+     */
+    private void onDetectionCompleted(PDFFileInfo fileInfo) {
+        SwingUtilities.invokeLater(() -> updateFileInTable(fileInfo));
+    }
+    
+    /**
+     * 批量检测完成回调
+     */
+    private void onBatchCompleted(BatchResult batch) {
+        if (batch.getTotalFiles() > 1) {
+            appendLog("本批检测完成: " + batch.getTotalFiles() + " 个文件，疑似空 " + batch.getSuspiciousFiles().size()
+                + " 个，检测失败 " + batch.getFailedFiles().size() + " 个");
+        }
+        sendBatchNotifications(batch);
+    }
+    
     /**
      * 批量发送通知
      */
-    private void sendBatchNotifications() {
-        if (currentScanSuspiciousFiles.isEmpty()) {
+    private void sendBatchNotifications(BatchResult batch) {
+        List<PDFFileInfo> suspiciousFiles = batch.getSuspiciousFiles();
+        if (suspiciousFiles.isEmpty()) {
             logger.info("本轮扫描未发现疑似空文件，无需发送通知");
             return;
         }
         
-        logger.info("开始批量发送通知，疑似空文件数量: {}", currentScanSuspiciousFiles.size());
-        appendLog("开始发送通知，疑似空文件数量: " + currentScanSuspiciousFiles.size());
+        logger.info("开始批量发送通知，疑似空文件数量: {}", suspiciousFiles.size());
+        appendLog("开始发送通知，疑似空文件数量: " + suspiciousFiles.size());
         
         // 使用NotificationService的新版批量发送功能，传递总文件数
         CompletableFuture.runAsync(() -> {
-            notificationService.sendBatchNotifications(new ArrayList<>(currentScanSuspiciousFiles), totalFilesInCurrentScan);
+            notificationService.sendBatchNotifications(new ArrayList<>(suspiciousFiles), batch.getTotalFiles());
         }).thenRun(() -> {
             SwingUtilities.invokeLater(() -> {
                 // 只更新表格中的通知状态，不显示单个文件的通知结果
-                for (PDFFileInfo fileInfo : currentScanSuspiciousFiles) {
+                for (PDFFileInfo fileInfo : suspiciousFiles) {
                     updateFileInTable(fileInfo);
                 }
                 // 只显示批量通知的整体结果
                 appendLog("本轮批量通知发送完成");
-                // 清理会话状态，避免后续回调再次使用旧的可疑列表
-                currentScanSuspiciousFiles.clear();
-                pendingDetections = 0;
-                totalFilesInCurrentScan = 0;
             });
         });
     }
@@ -0,0 +1,126 @@
+package com.tcpdftool.service;
+
+import com.tcpdftool.model.DetectionResult;
+import com.tcpdftool.service.stage.DetectionDeadline;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.Test;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 内容流预判测试
+ */
+public class ContentStreamTriageTest {
+    
+    private static final PDRectangle PAGE_SIZE = PDRectangle.A4;
+    
+    /**
+     * 页面中央 50% x 50% 的检测区域
+     */
+    private static final Rectangle2D DETECTION_AREA = new Rectangle2D.Double(
+        PAGE_SIZE.getWidth() / 4, PAGE_SIZE.getHeight() / 4, PAGE_SIZE.getWidth() / 2, PAGE_SIZE.getHeight() / 2);
+    
+    @Test
+    public void pageWithoutPaintOperatorsIsSuspicious() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PAGE_SIZE);
+            document.addPage(page);
+            new PDPageContentStream(document, page).close();
+            
+            assertEquals(DetectionResult.SUSPICIOUS_EMPTY_PIXELS, triage(page));
+        }
+    }
+    
+    @Test
+    public void frameAndTitleBlockOutsideAreaAreNotCounted() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PAGE_SIZE);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                // 包围整页的图框
+                content.addRect(10, 10, PAGE_SIZE.getWidth() - 20, PAGE_SIZE.getHeight() - 20);
+                content.stroke();
+                // 右下角标题栏的大量线条
+                for (int i = 0; i < 50; i++) {
+                    content.moveTo(PAGE_SIZE.getWidth() - 150, 15 + i);
+                    content.lineTo(PAGE_SIZE.getWidth() - 15, 15 + i);
+                    content.stroke();
+                }
+            }
+            
+            ContentStreamTriage triage = new ContentStreamTriage(page, DETECTION_AREA, 10, 0.10,
+                DetectionDeadline.none());
+            assertNull(triage.triage());
+            assertEquals(0, triage.getAreaPaintOperatorCount());
+        }
+    }
+    
+    @Test
+    public void backgroundFillCoveringAreaIsNotCounted() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PAGE_SIZE);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                for (int i = 0; i < 20; i++) {
+                    content.addRect(0, 0, PAGE_SIZE.getWidth(), PAGE_SIZE.getHeight());
+                    content.fill();
+                }
+            }
+            
+            assertNull(triage(page));
+        }
+    }
+    
+    @Test
+    public void strokesCoveringAreaAreNormal() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PAGE_SIZE);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                // 1pt 线宽、4pt 间距的横线铺满检测区域，着墨约25%
+                for (double y = DETECTION_AREA.getMinY() + 2; y < DETECTION_AREA.getMaxY(); y += 4) {
+                    content.moveTo((float) DETECTION_AREA.getMinX(), (float) y);
+                    content.lineTo((float) DETECTION_AREA.getMaxX(), (float) y);
+                    content.stroke();
+                }
+            }
+            
+            assertEquals(DetectionResult.NORMAL, triage(page));
+        }
+    }
+    
+    @Test
+    public void denseSmallPatchInEmptyAreaIsNotNormal() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PAGE_SIZE);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                // 检测区域中央 20pt 见方的小块内反复描边，操作符数量远超阈值
+                double centerX = DETECTION_AREA.getCenterX();
+                double centerY = DETECTION_AREA.getCenterY();
+                for (int i = 0; i < 600; i++) {
+                    float y = (float) (centerY - 10 + i % 20);
+                    content.moveTo((float) centerX - 10, y);
+                    content.lineTo((float) centerX + 10, y);
+                    content.stroke();
+                }
+            }
+            
+            ContentStreamTriage triage = new ContentStreamTriage(page, DETECTION_AREA, 10, 0.10,
+                DetectionDeadline.none());
+            assertNull(triage.triage());
+            assertEquals(600, triage.getAreaPaintOperatorCount());
+        }
+    }
+    
+    private DetectionResult triage(PDPage page) throws IOException {
+        return new ContentStreamTriage(page, DETECTION_AREA, 10, 0.10, DetectionDeadline.none()).triage();
+    }
+}
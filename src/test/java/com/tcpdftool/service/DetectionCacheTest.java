@@ -0,0 +1,116 @@
+package com.tcpdftool.service;
+
+import com.tcpdftool.model.DetectionMethod;
+import com.tcpdftool.model.DetectionResult;
+import com.tcpdftool.model.PDFFileInfo;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 检测结果缓存测试：配置指纹、文件大小、修改时间任一变化时缓存失效
+ */
+public class DetectionCacheTest {
+    
+    private static final String SETTINGS_KEY = "v1;threshold=10.0";
+    
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+    
+    @Test
+    public void unchangedFileHitsCache() throws IOException {
+        File pdf = writeFile("a.pdf", 100);
+        DetectionCache cache = new DetectionCache(temp.newFile("cache.json"), SETTINGS_KEY, false);
+        cache.store(pdf, detected(pdf, DetectionResult.SUSPICIOUS_EMPTY_PIXELS));
+        
+        DetectionCache.Entry entry = cache.lookup(pdf);
+        assertNotNull(entry);
+        assertEquals(DetectionResult.SUSPICIOUS_EMPTY_PIXELS, entry.getResult());
+        assertEquals(DetectionMethod.STANDARD_RENDER, entry.getMethod());
+    }
+    
+    @Test
+    public void settingsKeyMismatchDiscardsSavedEntries() throws IOException {
+        File pdf = writeFile("a.pdf", 100);
+        File cacheFile = new File(temp.getRoot(), "cache.json");
+        DetectionCache cache = new DetectionCache(cacheFile, SETTINGS_KEY, false);
+        cache.store(pdf, detected(pdf, DetectionResult.NORMAL));
+        cache.save();
+        
+        DetectionCache sameSettings = new DetectionCache(cacheFile, SETTINGS_KEY, false);
+        sameSettings.load();
+        assertNotNull(sameSettings.lookup(pdf));
+        
+        DetectionCache changedSettings = new DetectionCache(cacheFile, "v1;threshold=5.0", false);
+        changedSettings.load();
+        assertEquals(0, changedSettings.size());
+        assertNull(changedSettings.lookup(pdf));
+    }
+    
+    @Test
+    public void sizeChangeInvalidatesEntry() throws IOException {
+        File pdf = writeFile("a.pdf", 100);
+        long lastModified = pdf.lastModified();
+        DetectionCache cache = new DetectionCache(temp.newFile("cache.json"), SETTINGS_KEY, false);
+        cache.store(pdf, detected(pdf, DetectionResult.NORMAL));
+        
+        // 只改变大小，修改时间恢复原值
+        writeBytes(pdf, 200);
+        assertTrue(pdf.setLastModified(lastModified));
+        
+        assertNull(cache.lookup(pdf));
+    }
+    
+    @Test
+    public void modificationTimeChangeInvalidatesEntry() throws IOException {
+        File pdf = writeFile("a.pdf", 100);
+        DetectionCache cache = new DetectionCache(temp.newFile("cache.json"), SETTINGS_KEY, false);
+        cache.store(pdf, detected(pdf, DetectionResult.NORMAL));
+        
+        assertTrue(pdf.setLastModified(pdf.lastModified() + 10_000));
+        
+        assertNull(cache.lookup(pdf));
+    }
+    
+    @Test
+    public void failedAndTimedOutResultsAreNotStored() throws IOException {
+        File pdf = writeFile("a.pdf", 100);
+        DetectionCache cache = new DetectionCache(temp.newFile("cache.json"), SETTINGS_KEY, false);
+        cache.store(pdf, detected(pdf, DetectionResult.DETECTION_FAILED));
+        cache.store(pdf, detected(pdf, DetectionResult.TIMEOUT));
+        
+        assertEquals(0, cache.size());
+        assertNull(cache.lookup(pdf));
+    }
+    
+    private PDFFileInfo detected(File file, DetectionResult result) {
+        PDFFileInfo fileInfo = new PDFFileInfo(file.getName(), file.getAbsolutePath(), file.length(),
+            new Date(file.lastModified()));
+        fileInfo.setDetectionResult(result);
+        fileInfo.setDetectionMethod(DetectionMethod.STANDARD_RENDER);
+        return fileInfo;
+    }
+    
+    private File writeFile(String name, int size) throws IOException {
+        File file = new File(temp.getRoot(), name);
+        writeBytes(file, size);
+        return file;
+    }
+    
+    private void writeBytes(File file, int size) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[size]);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.tcpdftool.service;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 检测队列测试：出队顺序和准入许可计数
+ */
+public class DetectionQueueTest {
+    
+    private DetectionQueue queue;
+    
+    @After
+    public void shutdown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+    
+    @Test
+    public void queuedTasksRunByPriorityThenSortKeyThenSubmissionOrder() throws InterruptedException {
+        queue = new DetectionQueue("test", 1, 10);
+        CountDownLatch release = occupyWorker();
+        
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        queue.submit(() -> order.add("backlog-5"), DetectionPriority.BACKLOG, 5);
+        queue.submit(() -> order.add("backlog-1a"), DetectionPriority.BACKLOG, 1);
+        queue.submit(() -> order.add("backlog-1b"), DetectionPriority.BACKLOG, 1);
+        queue.submit(() -> order.add("live-9"), DetectionPriority.LIVE, 9);
+        queue.submit(() -> order.add("live-0"), DetectionPriority.LIVE, 0);
+        
+        release.countDown();
+        awaitIdle();
+        assertEquals(Arrays.asList("live-0", "live-9", "backlog-1a", "backlog-1b", "backlog-5"), order);
+    }
+    
+    @Test
+    public void liveTasksBypassPermitsWithoutLeakingThem() throws InterruptedException {
+        queue = new DetectionQueue("test", 1, 1);
+        CountDownLatch release = occupyWorker();
+        queue.submit(() -> { }, DetectionPriority.BACKLOG, 0);
+        assertTrue(queue.isSaturated());
+        
+        // 队列已满时实时任务仍可立即提交，积压任务被拒绝
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.trySubmit(() -> { }, DetectionPriority.LIVE, 0, 0, TimeUnit.MILLISECONDS));
+        }
+        assertFalse(queue.trySubmit(() -> { }, DetectionPriority.BACKLOG, 0, 10, TimeUnit.MILLISECONDS));
+        assertEquals(1, queue.getRejectedCount());
+        
+        release.countDown();
+        awaitIdle();
+        assertFalse(queue.isSaturated());
+        
+        // 实时任务完成后不归还许可，许可总数仍为 poolSize + capacity
+        CountDownLatch secondRelease = occupyWorker();
+        assertTrue(queue.trySubmit(() -> { }, DetectionPriority.BACKLOG, 0, 5, TimeUnit.SECONDS));
+        assertTrue(queue.isSaturated());
+        assertFalse(queue.trySubmit(() -> { }, DetectionPriority.BACKLOG, 0, 0, TimeUnit.MILLISECONDS));
+        secondRelease.countDown();
+        awaitIdle();
+    }
+    
+    /**
+     * 提交一个阻塞唯一工作线程的积压任务，后续任务都进入排队
+     * @return 放行该任务的门闩
+     */
+    private CountDownLatch occupyWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.submit(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, DetectionPriority.BACKLOG, 0);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+    
+    /**
+     * 等待已提交的任务全部完成并归还许可
+     */
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((queue.getCompletedCount() < queue.getSubmittedCount() || queue.isSaturated())
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(queue.getSubmittedCount(), queue.getCompletedCount());
+    }
+}
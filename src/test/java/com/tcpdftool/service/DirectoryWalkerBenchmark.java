@@ -0,0 +1,112 @@
+package com.tcpdftool.service;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 目录遍历基准测试
+ * 比较顺序遍历与不同并行度下的遍历耗时，并校验各方式发现的文件集合一致。
+ * 用法: DirectoryWalkerBenchmark [目录] [并行度...]
+ * 不指定目录时生成临时的深层目录树（结束后删除）；指定网络盘上的目录可测量实际往返开销
+ */
+public class DirectoryWalkerBenchmark {
+    
+    private static final int TREE_DEPTH = 6;
+    private static final int TREE_FANOUT = 4;
+    private static final int FILES_PER_DIRECTORY = 3;
+    private static final int ROUNDS = 5;
+    
+    public static void main(String[] args) throws IOException {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        Path root = null;
+        if (!arguments.isEmpty() && !arguments.get(0).matches("\\d+")) {
+            root = Paths.get(arguments.remove(0));
+        }
+        boolean generated = root == null;
+        if (generated) {
+            root = Files.createTempDirectory("walker-benchmark");
+            int files = createTree(root, TREE_DEPTH);
+            System.out.printf("已生成测试目录树: %s（深度 %d，每层 %d 个子目录，%d 个文件）%n",
+                root, TREE_DEPTH, TREE_FANOUT, files);
+        }
+        
+        List<Integer> levels = new ArrayList<>();
+        levels.add(1);
+        for (String argument : arguments) {
+            levels.add(Integer.parseInt(argument));
+        }
+        if (levels.size() == 1) {
+            levels.addAll(Arrays.asList(2, 4, 8, 16));
+        }
+        
+        try {
+            Set<Path> expected = null;
+            for (int parallelism : levels) {
+                long best = Long.MAX_VALUE;
+                long total = 0;
+                Set<Path> found = null;
+                for (int round = 0; round < ROUNDS; round++) {
+                    found = ConcurrentHashMap.newKeySet();
+                    Set<Path> target = found;
+                    long start = System.nanoTime();
+                    // 每轮使用新的遍历器，避免增量记录影响结果
+                    new DirectoryWalker().walk(root, true, false, parallelism, target::add);
+                    long elapsed = System.nanoTime() - start;
+                    best = Math.min(best, elapsed);
+                    total += elapsed;
+                }
+                if (expected == null) {
+                    expected = found;
+                }
+                System.out.printf("%s: 文件 %d, 最快 %.1fms, 平均 %.1fms, 结果%s%n",
+                    parallelism <= 1 ? "顺序遍历" : "并行度 " + parallelism, found.size(),
+                    best / 1_000_000.0, total / 1_000_000.0 / ROUNDS,
+                    found.equals(expected) ? "一致" : "不一致");
+            }
+        } finally {
+            if (generated) {
+                deleteTree(root);
+            }
+        }
+    }
+    
+    private static int createTree(Path dir, int depth) throws IOException {
+        int files = 0;
+        for (int i = 0; i < FILES_PER_DIRECTORY; i++) {
+            Files.createFile(dir.resolve("file" + i + ".pdf"));
+            files++;
+        }
+        if (depth > 0) {
+            for (int i = 0; i < TREE_FANOUT; i++) {
+                files += createTree(Files.createDirectory(dir.resolve("dir" + i)), depth - 1);
+            }
+        }
+        return files;
+    }
+    
+    private static void deleteTree(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
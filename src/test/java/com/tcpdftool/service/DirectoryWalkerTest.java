@@ -0,0 +1,182 @@
+package com.tcpdftool.service;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 目录遍历测试：顺序、并行和增量遍历发现的文件集合一致
+ */
+public class DirectoryWalkerTest {
+    
+    private static final int TREE_DEPTH = 3;
+    private static final int TREE_FANOUT = 3;
+    private static final int FILES_PER_DIRECTORY = 2;
+    private static final int PARALLELISM = 4;
+    
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+    
+    private Path root;
+    private Set<Path> allFiles;
+    private int directoryCount;
+    
+    @Before
+    public void createTree() throws IOException {
+        root = temp.newFolder("tree").toPath();
+        allFiles = new HashSet<>();
+        createTree(root, TREE_DEPTH);
+    }
+    
+    @Test
+    public void parallelWalkFindsSameFilesAsSequential() throws IOException {
+        Set<Path> sequential = walk(new DirectoryWalker(), true, false, 1);
+        Set<Path> parallel = walk(new DirectoryWalker(), true, false, PARALLELISM);
+        
+        assertEquals(allFiles, sequential);
+        assertEquals(sequential, parallel);
+    }
+    
+    @Test
+    public void walkStatsMatchTree() throws IOException {
+        for (int parallelism : new int[] {1, PARALLELISM}) {
+            DirectoryWalker.WalkStats stats = new DirectoryWalker().walk(root, true, false, parallelism, file -> { });
+            assertEquals(directoryCount, stats.getDirectories());
+            assertEquals(allFiles.size(), stats.getFiles());
+            assertEquals(0, stats.getSkippedDirectories());
+        }
+    }
+    
+    @Test
+    public void rootOnlyWalkIgnoresSubdirectories() throws IOException {
+        Set<Path> expected = new HashSet<>();
+        for (Path file : allFiles) {
+            if (file.getParent().equals(root)) {
+                expected.add(file);
+            }
+        }
+        
+        assertEquals(expected, walk(new DirectoryWalker(), false, false, 1));
+        assertEquals(expected, walk(new DirectoryWalker(), false, false, PARALLELISM));
+    }
+    
+    @Test
+    public void incrementalWalkSkipsUnchangedDirectories() throws IOException {
+        for (int parallelism : new int[] {1, PARALLELISM}) {
+            DirectoryWalker walker = new DirectoryWalker();
+            ageDirectories();
+            assertEquals(allFiles, walk(walker, true, true, parallelism));
+            
+            DirectoryWalker.WalkStats stats = walker.walk(root, true, true, parallelism, file -> { });
+            assertEquals(directoryCount, stats.getDirectories());
+            assertEquals(directoryCount, stats.getSkippedDirectories());
+            assertEquals(0, stats.getFiles());
+        }
+    }
+    
+    @Test
+    public void incrementalWalkFindsFilesAddedToDeepDirectory() throws IOException {
+        for (int parallelism : new int[] {1, PARALLELISM}) {
+            DirectoryWalker walker = new DirectoryWalker();
+            ageDirectories();
+            walk(walker, true, true, parallelism);
+            
+            Path deep = root.resolve("dir0").resolve("dir1").resolve("dir2");
+            Path added = Files.createFile(deep.resolve("added-" + parallelism + ".pdf"));
+            allFiles.add(added);
+            
+            Set<Path> inDeep = new HashSet<>();
+            for (Path file : allFiles) {
+                if (file.getParent().equals(deep)) {
+                    inDeep.add(file);
+                }
+            }
+            // 只有新增文件所在目录重新列举
+            Set<Path> found = walk(walker, true, true, parallelism);
+            assertTrue(found.contains(added));
+            assertEquals(inDeep, found);
+        }
+    }
+    
+    @Test
+    public void incrementalWalkMatchesFullWalkAfterChanges() throws IOException {
+        DirectoryWalker sequential = new DirectoryWalker();
+        DirectoryWalker parallel = new DirectoryWalker();
+        ageDirectories();
+        walk(sequential, true, true, 1);
+        walk(parallel, true, true, PARALLELISM);
+        
+        Path newDirectory = Files.createDirectory(root.resolve("dir1").resolve("new"));
+        allFiles.add(Files.createFile(newDirectory.resolve("new.pdf")));
+        allFiles.add(Files.createFile(root.resolve("dir2").resolve("other.pdf")));
+        
+        Set<Path> expected = new HashSet<>();
+        expected.add(newDirectory.resolve("new.pdf"));
+        expected.add(root.resolve("dir2").resolve("other.pdf"));
+        Set<Path> sequentialFound = walk(sequential, true, true, 1);
+        Set<Path> parallelFound = walk(parallel, true, true, PARALLELISM);
+        assertTrue(sequentialFound.containsAll(expected));
+        assertEquals(sequentialFound, parallelFound);
+        
+        sequential.reset();
+        assertEquals(allFiles, walk(sequential, true, true, 1));
+    }
+    
+    @Test
+    public void fullWalkIgnoresSnapshots() throws IOException {
+        DirectoryWalker walker = new DirectoryWalker();
+        ageDirectories();
+        walk(walker, true, true, 1);
+        
+        assertEquals(allFiles, walk(walker, true, false, 1));
+        assertEquals(allFiles, walk(walker, true, false, PARALLELISM));
+    }
+    
+    private Set<Path> walk(DirectoryWalker walker, boolean includeSubdirectories, boolean incremental,
+                           int parallelism) throws IOException {
+        Set<Path> found = ConcurrentHashMap.newKeySet();
+        walker.walk(root, includeSubdirectories, incremental, parallelism, found::add);
+        return found;
+    }
+    
+    private void createTree(Path dir, int depth) throws IOException {
+        directoryCount++;
+        for (int i = 0; i < FILES_PER_DIRECTORY; i++) {
+            allFiles.add(Files.createFile(dir.resolve("file" + i + ".pdf")));
+        }
+        if (depth > 0) {
+            for (int i = 0; i < TREE_FANOUT; i++) {
+                createTree(Files.createDirectory(dir.resolve("dir" + i)), depth - 1);
+            }
+        }
+    }
+    
+    /**
+     * 把全部目录的修改时间调到过去，超出修改时间精度余量，使未变化的目录可以跳过
+     */
+    private void ageDirectories() throws IOException {
+        FileTime past = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(10));
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.setLastModifiedTime(dir, past);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
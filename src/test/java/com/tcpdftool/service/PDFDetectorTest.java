@@ -0,0 +1,89 @@
+package com.tcpdftool.service;
+
+import com.tcpdftool.config.AppConfig;
+import com.tcpdftool.model.DetectionResult;
+import com.tcpdftool.model.PDFFileInfo;
+import com.tcpdftool.service.stage.DetectionDeadline;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * 检测服务测试：检测时限在阶段执行中到期时结果为超时
+ */
+public class PDFDetectorTest {
+    
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+    
+    private PDFDetector detector;
+    
+    @Before
+    public void createDetector() throws IOException {
+        AppConfig config = new AppConfig();
+        config.setEnableDetectionCache(false);
+        config.setScratchDirectory(temp.newFolder("scratch").getAbsolutePath());
+        // 不按文件大小短路，确保进入解析内容流的阶段
+        config.setFileSizeThreshold(0);
+        detector = new PDFDetector(config);
+    }
+    
+    @After
+    public void shutdownDetector() {
+        detector.shutdown();
+    }
+    
+    @Test
+    public void deadlineExpiringDuringStageYieldsTimeout() throws IOException, InterruptedException {
+        File file = writeLinedPage("lines.pdf");
+        PDFFileInfo fileInfo = new PDFFileInfo(file.getName(), file.getAbsolutePath(), file.length(), new Date());
+        
+        // 结构预检和大小阶段不检查时限，解析内容流的第一个操作符处发现已到期
+        DetectionDeadline deadline = DetectionDeadline.after(1);
+        Thread.sleep(10);
+        
+        assertEquals(DetectionResult.TIMEOUT, detector.detectPDF(fileInfo, deadline));
+        assertNotNull(fileInfo.getErrorMessage());
+    }
+    
+    @Test
+    public void unexpiredDeadlineCompletesDetection() throws IOException {
+        File file = writeLinedPage("lines.pdf");
+        PDFFileInfo fileInfo = new PDFFileInfo(file.getName(), file.getAbsolutePath(), file.length(), new Date());
+        
+        assertEquals(DetectionResult.NORMAL, detector.detectPDF(fileInfo, DetectionDeadline.none()));
+    }
+    
+    /**
+     * 1pt 线宽、4pt 间距的横线铺满整页
+     */
+    private File writeLinedPage(String name) throws IOException {
+        File file = new File(temp.getRoot(), name);
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.A4);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                for (float y = 2; y < PDRectangle.A4.getHeight(); y += 4) {
+                    content.moveTo(0, y);
+                    content.lineTo(PDRectangle.A4.getWidth(), y);
+                    content.stroke();
+                }
+            }
+            document.save(file);
+        }
+        return file;
+    }
+}
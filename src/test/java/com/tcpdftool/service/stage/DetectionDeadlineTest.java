@@ -0,0 +1,49 @@
+package com.tcpdftool.service.stage;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 检测时限测试
+ */
+public class DetectionDeadlineTest {
+    
+    @Test
+    public void expiresAfterBudget() throws InterruptedException {
+        DetectionDeadline deadline = DetectionDeadline.after(20);
+        assertFalse(deadline.isExpired());
+        deadline.check();
+        
+        Thread.sleep(40);
+        assertTrue(deadline.isExpired());
+        try {
+            deadline.check();
+            fail("超时后应中止检测");
+        } catch (DetectionTimeoutException e) {
+            assertFalse(e.isCancelled());
+        }
+    }
+    
+    @Test
+    public void noneNeverExpires() {
+        assertFalse(DetectionDeadline.none().isExpired());
+        assertFalse(DetectionDeadline.after(0).isExpired());
+        DetectionDeadline.none().check();
+    }
+    
+    @Test
+    public void interruptedThreadIsReportedAsCancelled() {
+        Thread.currentThread().interrupt();
+        try {
+            DetectionDeadline.none().check();
+            fail("线程中断后应中止检测");
+        } catch (DetectionTimeoutException e) {
+            assertTrue(e.isCancelled());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
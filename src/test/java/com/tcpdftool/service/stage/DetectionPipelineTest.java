@@ -0,0 +1,207 @@
+package com.tcpdftool.service.stage;
+
+import com.tcpdftool.config.AppConfig;
+import com.tcpdftool.model.DetectionMethod;
+import com.tcpdftool.model.DetectionResult;
+import com.tcpdftool.model.PDFFileInfo;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 检测流水线执行顺序与组合策略测试
+ */
+public class DetectionPipelineTest {
+    
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+    
+    /**
+     * 固定结论的测试阶段，记录执行顺序
+     */
+    private static class FixedStage implements DetectionStage {
+        private final String name;
+        private final int cost;
+        private final StageResult result;
+        private final List<String> executed;
+        
+        FixedStage(String name, int cost, StageResult result, List<String> executed) {
+            this.name = name;
+            this.cost = cost;
+            this.result = result;
+            this.executed = executed;
+        }
+        
+        @Override
+        public String getName() {
+            return name;
+        }
+        
+        @Override
+        public int getEstimatedCost() {
+            return cost;
+        }
+        
+        @Override
+        public StageResult evaluate(DetectionContext context) {
+            executed.add(name);
+            return result;
+        }
+    }
+    
+    @Test
+    public void stagesRunInAscendingCostOrder() throws IOException {
+        List<String> executed = new ArrayList<>();
+        DetectionPipeline pipeline = new DetectionPipeline(Arrays.<DetectionStage>asList(
+            new FixedStage("c", 30, StageResult.continueNext(), executed),
+            new FixedStage("a", 10, StageResult.continueNext(), executed),
+            new FixedStage("b", 20, StageResult.continueNext(), executed)), CombinePolicy.ANY);
+        
+        assertEquals(DetectionResult.NORMAL, pipeline.run(context(writeFile("a.pdf", 10))));
+        assertEquals(Arrays.asList("a", "b", "c"), executed);
+    }
+    
+    @Test
+    public void equalCostKeepsRegistrationOrder() throws IOException {
+        List<String> executed = new ArrayList<>();
+        DetectionPipeline pipeline = new DetectionPipeline(Arrays.<DetectionStage>asList(
+            new FixedStage("first", 5, StageResult.continueNext(), executed),
+            new FixedStage("second", 5, StageResult.continueNext(), executed)), CombinePolicy.ANY);
+        
+        pipeline.run(context(writeFile("a.pdf", 10)));
+        assertEquals(Arrays.asList("first", "second"), executed);
+    }
+    
+    @Test
+    public void anyPolicyStopsAtFirstSuspicious() throws IOException {
+        List<String> executed = new ArrayList<>();
+        DetectionPipeline pipeline = new DetectionPipeline(Arrays.<DetectionStage>asList(
+            new FixedStage("size", 1, StageResult.suspicious(DetectionResult.SUSPICIOUS_EMPTY_SIZE), executed),
+            new FixedStage("image", 1000, StageResult.normal(), executed)), CombinePolicy.ANY);
+        
+        assertEquals(DetectionResult.SUSPICIOUS_EMPTY_SIZE, pipeline.run(context(writeFile("a.pdf", 10))));
+        assertEquals(Arrays.asList("size"), executed);
+    }
+    
+    @Test
+    public void allPolicyStopsAtFirstNormal() throws IOException {
+        List<String> executed = new ArrayList<>();
+        DetectionPipeline pipeline = new DetectionPipeline(Arrays.<DetectionStage>asList(
+            new FixedStage("size", 1, StageResult.normal(), executed),
+            new FixedStage("image", 1000, StageResult.suspicious(DetectionResult.SUSPICIOUS_EMPTY_PIXELS), executed)),
+            CombinePolicy.ALL);
+        
+        assertEquals(DetectionResult.NORMAL, pipeline.run(context(writeFile("a.pdf", 10))));
+        assertEquals(Arrays.asList("size"), executed);
+    }
+    
+    @Test
+    public void allPolicyCombinesSizeAndPixelsIntoBoth() throws IOException {
+        List<String> executed = new ArrayList<>();
+        DetectionPipeline pipeline = new DetectionPipeline(Arrays.<DetectionStage>asList(
+            new FixedStage("size", 1, StageResult.suspicious(DetectionResult.SUSPICIOUS_EMPTY_SIZE), executed),
+            new FixedStage("image", 1000, StageResult.suspicious(DetectionResult.SUSPICIOUS_EMPTY_PIXELS), executed)),
+            CombinePolicy.ALL);
+        
+        assertEquals(DetectionResult.SUSPICIOUS_EMPTY_BOTH, pipeline.run(context(writeFile("a.pdf", 10))));
+        assertEquals(Arrays.asList("size", "image"), executed);
+    }
+    
+    @Test
+    public void finalResultIgnoresPolicy() throws IOException {
+        for (CombinePolicy policy : CombinePolicy.values()) {
+            List<String> executed = new ArrayList<>();
+            DetectionPipeline pipeline = new DetectionPipeline(Arrays.<DetectionStage>asList(
+                new FixedStage("final", 1, StageResult.finalResult(DetectionResult.DETECTION_FAILED), executed),
+                new FixedStage("image", 1000, StageResult.normal(), executed)), policy);
+            
+            assertEquals(DetectionResult.DETECTION_FAILED, pipeline.run(context(writeFile(policy + ".pdf", 10))));
+            assertEquals(Arrays.asList("final"), executed);
+        }
+    }
+    
+    @Test
+    public void truncatedSmallFileIsTruncatedUnderAny() throws IOException {
+        File file = writeTruncatedPdf("small.pdf", 2 * 1024);
+        assertEquals(DetectionResult.TRUNCATED, defaultPipeline(CombinePolicy.ANY).run(context(file)));
+    }
+    
+    @Test
+    public void truncatedLargeFileIsTruncatedUnderAll() throws IOException {
+        File file = writeTruncatedPdf("large.pdf", 64 * 1024);
+        assertEquals(DetectionResult.TRUNCATED, defaultPipeline(CombinePolicy.ALL).run(context(file)));
+    }
+    
+    @Test
+    public void sizeStageLabelsMethodOnlyWhenSuspicious() throws IOException {
+        AppConfig config = new AppConfig();
+        config.setFileSizeThreshold(10);
+        FileSizeStage stage = new FileSizeStage(config);
+        
+        DetectionContext large = context(writeFile("large.pdf", 64 * 1024));
+        assertEquals(StageResult.Kind.NORMAL, stage.evaluate(large).getKind());
+        assertNull(large.getFileInfo().getDetectionMethod());
+        
+        DetectionContext small = context(writeFile("small.pdf", 1024));
+        assertEquals(StageResult.Kind.SUSPICIOUS, stage.evaluate(small).getKind());
+        assertEquals(DetectionMethod.FILE_SIZE, small.getFileInfo().getDetectionMethod());
+    }
+    
+    @Test
+    public void precheckRunsBeforeSizeStage() {
+        AppConfig config = new AppConfig();
+        DetectionPipeline pipeline = defaultPipeline(CombinePolicy.ANY);
+        assertTrue(pipeline.getStages().get(0) instanceof StructurePrecheckStage);
+        assertFalse(pipeline.getStages().get(1) instanceof StructurePrecheckStage);
+        assertTrue(new StructurePrecheckStage().getEstimatedCost() < new FileSizeStage(config).getEstimatedCost());
+    }
+    
+    /**
+     * 与PDFDetector默认注册顺序相同的大小阶段和结构预检阶段
+     */
+    private DetectionPipeline defaultPipeline(CombinePolicy policy) {
+        AppConfig config = new AppConfig();
+        config.setFileSizeThreshold(10);
+        return new DetectionPipeline(Arrays.<DetectionStage>asList(
+            new FileSizeStage(config), new StructurePrecheckStage()), policy);
+    }
+    
+    private DetectionContext context(File file) {
+        PDFFileInfo fileInfo = new PDFFileInfo(file.getName(), file.getAbsolutePath(), file.length(), new Date());
+        return new DetectionContext(file, fileInfo, f -> {
+            throw new IOException("测试中不应加载文档");
+        }, DetectionDeadline.none());
+    }
+    
+    private File writeFile(String name, int size) throws IOException {
+        File file = temp.newFile(name);
+        Files.write(file.toPath(), new byte[size]);
+        return file;
+    }
+    
+    /**
+     * 写入有文件头但缺少文件尾的PDF（模拟写入中途的文件）
+     */
+    private File writeTruncatedPdf(String name, int size) throws IOException {
+        byte[] bytes = new byte[size];
+        byte[] header = "%PDF-1.4\n".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, bytes, 0, header.length);
+        File file = temp.newFile(name);
+        Files.write(file.toPath(), bytes);
+        return file;
+    }
+}
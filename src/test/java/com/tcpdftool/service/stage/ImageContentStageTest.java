@@ -0,0 +1,144 @@
+package com.tcpdftool.service.stage;
+
+import com.tcpdftool.config.AppConfig;
+import com.tcpdftool.model.DetectionResult;
+import com.tcpdftool.model.PDFFileInfo;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 图像内容检测测试：分辨率相关的优化不应改变细线图纸的结论
+ */
+public class ImageContentStageTest {
+    
+    /**
+     * 稀疏细线：0.5pt线宽、20pt间距，72 DPI下内容密度约5%，低于默认阈值10%
+     */
+    private static final float SPARSE_LINE_WIDTH = 0.5f;
+    private static final float SPARSE_LINE_SPACING = 20f;
+    
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+    
+    @Test
+    public void sparseHatchVerdictIndependentOfAdaptiveResolution() throws IOException {
+        File file = writeHatchedPage("a4.pdf", PDRectangle.A4);
+        
+        AppConfig adaptive = testConfig();
+        adaptive.setEnableAdaptiveResolution(true);
+        AppConfig standard = testConfig();
+        standard.setEnableAdaptiveResolution(false);
+        
+        DetectionResult standardResult = evaluate(standard, file);
+        assertEquals(DetectionResult.SUSPICIOUS_EMPTY_PIXELS, standardResult);
+        assertEquals(standardResult, evaluate(adaptive, file));
+    }
+    
+    @Test
+    public void sparseHatchVerdictIndependentOfSheetSize() throws IOException {
+        AppConfig config = testConfig();
+        
+        DetectionResult a4 = evaluate(config, writeHatchedPage("a4.pdf", PDRectangle.A4));
+        DetectionResult a0 = evaluate(config, writeHatchedPage("a0.pdf", PDRectangle.A0));
+        
+        assertEquals(DetectionResult.SUSPICIOUS_EMPTY_PIXELS, a4);
+        assertEquals(a4, a0);
+    }
+    
+    @Test
+    public void sampledDensityAgreesWithFullCountNearThreshold() throws IOException {
+        AppConfig full = testConfig();
+        full.setEnableAdaptiveResolution(false);
+        full.setEnableSampledDensity(false);
+        AppConfig sampled = testConfig();
+        sampled.setEnableAdaptiveResolution(false);
+        sampled.setEnableSampledDensity(true);
+        
+        // 条纹高度/周期（pt），密度覆盖默认阈值10%两侧及阈值本身
+        int[][] stripes = {{1, 20}, {9, 100}, {19, 200}, {1, 10}, {21, 200}, {11, 100}, {1, 5}};
+        for (int[] stripe : stripes) {
+            File file = writeStripedPage("stripes-" + stripe[0] + "-" + stripe[1] + ".pdf", stripe[0], stripe[1]);
+            assertEquals("条纹 " + stripe[0] + "/" + stripe[1], evaluate(full, file), evaluate(sampled, file));
+        }
+    }
+    
+    @Test
+    public void sampledDensityDecidesClearCasesLikeFullCount() throws IOException {
+        AppConfig sampled = testConfig();
+        sampled.setEnableAdaptiveResolution(false);
+        sampled.setEnableSampledDensity(true);
+        
+        assertEquals(DetectionResult.SUSPICIOUS_EMPTY_PIXELS, evaluate(sampled, writeStripedPage("sparse.pdf", 1, 50)));
+        assertEquals(DetectionResult.NORMAL, evaluate(sampled, writeStripedPage("dense.pdf", 1, 4)));
+    }
+    
+    /**
+     * 默认配置，关闭内容流预判以确保走到渲染检测
+     */
+    private AppConfig testConfig() {
+        AppConfig config = new AppConfig();
+        config.setEnableContentStreamTriage(false);
+        return config;
+    }
+    
+    private DetectionResult evaluate(AppConfig config, File file) throws IOException {
+        PDFFileInfo fileInfo = new PDFFileInfo(file.getName(), file.getAbsolutePath(), file.length(), new Date());
+        try (DetectionContext context = new DetectionContext(file, fileInfo, PDDocument::load,
+                DetectionDeadline.none())) {
+            return new ImageContentStage(config).evaluate(context).getResult();
+        }
+    }
+    
+    /**
+     * 整页铺满与像素对齐的黑色水平条纹，内容密度约为 高度/周期
+     * 页面尺寸取整数点，72 DPI渲染时条纹边缘不产生抗锯齿灰边
+     */
+    private File writeStripedPage(String name, int stripeHeight, int period) throws IOException {
+        PDRectangle size = new PDRectangle(600, 840);
+        File file = new File(temp.getRoot(), name);
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(size);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                for (int y = 0; y < size.getHeight(); y += period) {
+                    content.addRect(0, y, size.getWidth(), stripeHeight);
+                }
+                content.fill();
+            }
+            document.save(file);
+        }
+        return file;
+    }
+    
+    /**
+     * 整页铺满水平细线
+     */
+    private File writeHatchedPage(String name, PDRectangle size) throws IOException {
+        File file = new File(temp.getRoot(), name);
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(size);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.setLineWidth(SPARSE_LINE_WIDTH);
+                for (float y = SPARSE_LINE_SPACING / 2; y < size.getHeight(); y += SPARSE_LINE_SPACING) {
+                    content.moveTo(0, y);
+                    content.lineTo(size.getWidth(), y);
+                    content.stroke();
+                }
+            }
+            document.save(file);
+        }
+        return file;
+    }
+}